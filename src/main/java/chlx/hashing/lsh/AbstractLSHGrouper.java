@@ -3,14 +3,22 @@ package chlx.hashing.lsh;
 import chlx.hashing.minhash.MinHash;
 import chlx.hashing.minhash.MinHashSimplified;
 import chlx.hashing.similarity.JaccardIndex;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import org.javatuples.Pair;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
@@ -19,12 +27,126 @@ import java.util.*;
 public abstract class AbstractLSHGrouper {
 
 	private static final int GROUP_MIN_HASH_SIZE = 20;
+	// Max number of bigGroups sharing a MinHash value which are compared with each other
+	private static final int MAX_CANDIDATE_RUN_SIZE = 512;
 	private static final int DUP_ELEMENT_MIN_APPEARANCE_32 = 4;
 	private static final double DUP_GROUP_MIN_SIM_THRESHOLD = 0.5;
 	private static final Logger LOG = LoggerFactory.getLogger(AbstractLSHGrouper.class);
+	// Value of a bucket dropped by OversizedBucketPolicy.DROP
+	protected static final DocIdPostingList DROPPED_BUCKET = new DocIdPostingList();
 
 	protected int dupElementMinAppearance = DUP_ELEMENT_MIN_APPEARANCE_32;
 
+	private int maxBucketSize = Integer.MAX_VALUE;
+	private OversizedBucketPolicy oversizedBucketPolicy = OversizedBucketPolicy.SAMPLE;
+	// stage -> bucket hash -> number of docs put, only for buckets which reached maxBucketSize
+	// and were not counted in a map given by the subclass, not thread safe
+	private final Int2ObjectOpenHashMap<Long2LongOpenHashMap> oversizedBuckets = new Int2ObjectOpenHashMap<>();
+
+	/**
+	 * What to do with buckets having more than maxBucketSize docs (e.g. boilerplate text shared by thousands of docs)
+	 */
+	public enum OversizedBucketPolicy {
+		/**
+		 * Keep a sample of maxBucketSize docs (reservoir sampling seeded by doc ids)
+		 */
+		SAMPLE,
+		/**
+		 * Drop the bucket, its docs can still be grouped by other buckets
+		 */
+		DROP
+	}
+
+	/**
+	 * Bound the size of every bucket, so that extraction time is bounded however skewed buckets are,
+	 * must be set before the first put. Buckets are not bounded by default.
+	 *
+	 * @param maxBucketSize max number of docs kept per bucket, at least 3
+	 */
+	public void setOversizedBucketPolicy(int maxBucketSize, @NotNull OversizedBucketPolicy policy) {
+		if (maxBucketSize < 3) {
+			throw new IllegalArgumentException("maxBucketSize can't be smaller than 3");
+		}
+		this.maxBucketSize = maxBucketSize;
+		this.oversizedBucketPolicy = policy;
+	}
+
+	/**
+	 * Append docId into bucket following the oversized bucket policy
+	 *
+	 * @return the list to keep as the bucket's value: bucket itself or DROPPED_BUCKET
+	 */
+	protected final DocIdPostingList appendToBucket(int stage, long bucketHash, @NotNull DocIdPostingList bucket, long docId) {
+		return appendToBucket(stage, bucketHash, bucket, docId, null);
+	}
+
+	/**
+	 * Append docId into bucket following the oversized bucket policy
+	 *
+	 * @param oversizedCounts bucket hash -> number of docs put, for oversized buckets of the stage, guarded by
+	 *                        the same lock as bucket. If null, they are counted by the grouper without any lock
+	 * @return the list to keep as the bucket's value: bucket itself or DROPPED_BUCKET
+	 */
+	protected final DocIdPostingList appendToBucket(int stage, long bucketHash, @NotNull DocIdPostingList bucket, long docId,
+	                                                @Nullable Long2LongOpenHashMap oversizedCounts) {
+		if (bucket != DROPPED_BUCKET && bucket.size() < maxBucketSize) {
+			bucket.add(docId);
+			return bucket;
+		}
+		if (oversizedCounts == null) {
+			oversizedCounts = oversizedBuckets.get(stage);
+			if (oversizedCounts == null) {
+				oversizedCounts = new Long2LongOpenHashMap();
+				oversizedBuckets.put(stage, oversizedCounts);
+			}
+		}
+		long seen = countOversized(oversizedCounts, bucketHash, bucket.size());
+		if (bucket == DROPPED_BUCKET) {
+			return bucket;
+		}
+		if (oversizedBucketPolicy == OversizedBucketPolicy.DROP) {
+			LOG.debug("Dropped bucket {} of stage {} with {} docs", bucketHash, stage, seen);
+			return DROPPED_BUCKET;
+		}
+		// docId replaces a kept doc with probability maxBucketSize / seen
+		long index = Math.floorMod(HashCommon.mix(docId ^ (seen * 0x9E3779B97F4A7C15L)), seen);
+		if (index < maxBucketSize) {
+			bucket.set((int) index, docId);
+		}
+		return bucket;
+	}
+
+	/**
+	 * @param size number of docs of the bucket before it became oversized
+	 * @return number of docs put into the bucket, docId included
+	 */
+	private static long countOversized(Long2LongOpenHashMap counts, long bucketHash, int size) {
+		if (!counts.containsKey(bucketHash)) {
+			counts.put(bucketHash, size);
+		}
+		return counts.addTo(bucketHash, 1) + 1;
+	}
+
+	/**
+	 * Forget oversized buckets counted by the grouper, when its buckets are built again
+	 */
+	protected final void clearOversizedBuckets() {
+		oversizedBuckets.clear();
+	}
+
+	/**
+	 * Must only be called after every put has returned
+	 *
+	 * @return buckets which had more than maxBucketSize docs, with their number of docs put
+	 */
+	@NotNull
+	public List<OversizedBucket> getOversizedBuckets() {
+		List<OversizedBucket> ret = new ArrayList<>();
+		oversizedBuckets.forEach((stage, counts) -> counts.forEach((bucketHash, docCount) ->
+				ret.add(new OversizedBucket(stage, bucketHash, docCount))));
+		return ret;
+	}
+
 	/**
 	 * put docId into presented buckets inorder to extract dupGroups later
 	 * ... with hash validation
@@ -33,9 +155,9 @@ public abstract class AbstractLSHGrouper {
 
 	/**
 	 * Converting Map<bucketHash, List<docIds> groupBuilder
-	 * into a list of IdGroups, and a count map of IdPair
+	 * into a list of IdGroups, and a count map of id pairs
 	 */
-	protected abstract Pair<List<IdGroup>, Object2IntOpenHashMap<IdPair>> extractBigGroupsAndPairs();
+	protected abstract Pair<List<IdGroup>, IdPairCountMap> extractBigGroupsAndPairs();
 
 	/**
 	 * 1. Grouping: use grouping() to group bigGroups, and get countPairMap
@@ -45,42 +167,19 @@ public abstract class AbstractLSHGrouper {
 	 * 2.2 do the same thing with pairCountMap
 	 *
 	 * @return lists of 'probably' duplicated ids stay in the same array
-	 * @implNote We probably need to optimize the sorting part in 'finding candidates' if we want to
-	 * extract duplicate groups from the whole index, because it would take
-	 * GROUP_MIN_HASH_SIZE * n(log n) (while n is number of IdGroups)
+	 * @implNote 'finding candidates' is a single hash pass per MinHash column, see putCandidates
 	 */
 	public List<long[]> extractDuplicateGroups() {
 		LOG.debug("Filtering small bigGroups, grouping bigGroups and counting pairs");
-		Pair<List<IdGroup>, Object2IntOpenHashMap<IdPair>> bigGroupsAndPairs = extractBigGroupsAndPairs();
+		Pair<List<IdGroup>, IdPairCountMap> bigGroupsAndPairs = extractBigGroupsAndPairs();
+		logOversizedBuckets();
 		List<IdGroup> bigGroups = bigGroupsAndPairs.getValue0();
-		Object2IntOpenHashMap<IdPair> pairCountMap = bigGroupsAndPairs.getValue1();
+		IdPairCountMap pairCountMap = bigGroupsAndPairs.getValue1();
 
-		// 1. Sort by each column of MinHash signature - from 0 to GROUP_MIN_HASH_SIZE
-		// 2. Add IdGroups which has the same MinHash signature to other candidates
-		// TODO: We might need to fasten this since there are too many groups if we do this with the entire index
+		// Add IdGroups which has the same MinHash signature value in any column to other candidates
 		LOG.debug("Finished filtering with {} bigGroups, and {} unique pairs", bigGroups.size(), pairCountMap.size());
 		LOG.debug("Finding candidates of {} bigGroups", bigGroups.size());
-		for (int hashIndex = 0; hashIndex < GROUP_MIN_HASH_SIZE; hashIndex++) {
-			LOG.debug("Finding candidates with hashIndex: {}/" + (GROUP_MIN_HASH_SIZE - 1), hashIndex);
-			final int finalHashIndex = hashIndex;
-			bigGroups.sort(Comparator.comparingInt(o -> o.minHash[finalHashIndex]));
-			int lastSimilarIndex = 0;
-			int lastHashValue = Integer.MIN_VALUE;
-			for (int groupIndex = 0; groupIndex < bigGroups.size(); groupIndex++) {
-				if (lastHashValue != bigGroups.get(groupIndex).minHash[hashIndex]) {
-					for (int i = lastSimilarIndex; i < groupIndex; i++) {
-						IdGroup iGroup = bigGroups.get(i);
-						for (int j = lastSimilarIndex; j < groupIndex; j++) {
-							if (i != j) {
-								iGroup.putCandidate(bigGroups.get(j));
-							}
-						}
-					}
-					lastSimilarIndex = groupIndex;
-				}
-				lastHashValue = bigGroups.get(groupIndex).minHash[hashIndex];
-			}
-		}
+		putCandidates(bigGroups);
 
 		List<long[]> ret = new ArrayList<>();
 		int compareWithPairsLength = (int) (2 / DUP_GROUP_MIN_SIM_THRESHOLD);
@@ -90,7 +189,6 @@ public abstract class AbstractLSHGrouper {
 		HashSet<IdGroup> pollSet = new HashSet<>();
 		pollSet.addAll(bigGroups);
 		HashSet<IdGroup> removedGroups = new HashSet<>();
-		HashSet<IdPair> removedPairs = new HashSet<>();
 
 		for (IdGroup current : pollSet) {
 			if (removedGroups.contains(current)) {
@@ -105,7 +203,8 @@ public abstract class AbstractLSHGrouper {
 			// Take all candidates and its candidates as well into nextGroups
 			Queue<IdGroup> candidateQueue = new ArrayDeque<>();
 			HashSet<IdGroup> nextGroups = new HashSet<>();
-			Object2IntOpenHashMap<IdPair> nextPairs = null;
+			// Slots of pairCountMap
+			IntOpenHashSet nextPairs = null;
 			candidateQueue.add(current);
 			nextGroups.add(current);
 
@@ -125,18 +224,15 @@ public abstract class AbstractLSHGrouper {
 				// With all groups which is not over 1/DUP_GROUP_MIN_SIM_THRESHOLD times larger than pair(2)
 				// we also look for candidates in pairCountMap and all of them into nextPairs
 				// but not the candidateQueue
-				if (next.docIds.size() <= compareWithPairsLength) {
+				if (next.docIds.length <= compareWithPairsLength) {
 					if (nextPairs == null) {
-						nextPairs = new Object2IntOpenHashMap<>();
+						nextPairs = new IntOpenHashSet();
 					}
-					for (int i1 = 0; i1 < next.docIds.size() - 1; i1++) {
-						for (int i2 = i1 + 1; i2 < next.docIds.size(); i2++) {
-							IdPair pair = new IdPair(Arrays.asList(next.docIds.get(i1), next.docIds.get(i2)));
-							if (!removedPairs.contains(pair)) {
-								Integer count = pairCountMap.get(pair);
-								if (count != null) {
-									nextPairs.put(pair, count);
-								}
+					for (int i1 = 0; i1 < next.docIds.length - 1; i1++) {
+						for (int i2 = i1 + 1; i2 < next.docIds.length; i2++) {
+							int slot = pairCountMap.slot(next.docIds[i1], next.docIds[i2]);
+							if (slot != IdPairCountMap.NO_SLOT) {
+								nextPairs.add(slot);
 							}
 						}
 					}
@@ -151,38 +247,47 @@ public abstract class AbstractLSHGrouper {
 			//      then remove it in the corresponding set/map
 			int pairSize = 0;
 			if (nextPairs != null) {
-				for (int count : nextPairs.values()) {
-					pairSize += count;
+				for (int slot : nextPairs) {
+					pairSize += pairCountMap.count(slot);
 				}
 			}
 			if (nextGroups.size() + pairSize >= dupElementMinAppearance) {
 				Long2IntOpenHashMap map = new Long2IntOpenHashMap();
-				nextGroups.forEach(idGroup -> idGroup.docIds.forEach(l -> map.addTo(l, 1)));
+				for (IdGroup idGroup : nextGroups) {
+					for (long docId : idGroup.docIds) {
+						map.addTo(docId, 1);
+					}
+				}
 				if (nextPairs != null) {
-					nextPairs.forEach((idPair, count) -> idPair.value.forEach(id -> map.addTo(id, count)));
+					for (int slot : nextPairs) {
+						int count = pairCountMap.count(slot);
+						map.addTo(pairCountMap.firstId(slot), count);
+						map.addTo(pairCountMap.secondId(slot), count);
+					}
 				}
-				List<Long> matchIds = new ArrayList<>();
+				LongArrayList matchIdList = new LongArrayList();
 				map.forEach((docId, count) -> {
 					if (count > dupElementMinAppearance) {
-						matchIds.add(docId);
+						matchIdList.add((long) docId);
 					}
 				});
 				// If number of matched ids > 1 then add the sorted list into the returned list
-				if (matchIds.size() > 1) {
-					Collections.sort(matchIds);
-					long[] toAdd = matchIds.stream().mapToLong(l -> l).toArray();
-					ret.add(toAdd);
+				if (matchIdList.size() > 1) {
+					long[] matchIds = matchIdList.toLongArray();
+					Arrays.sort(matchIds);
+					ret.add(matchIds);
 					for (IdGroup idGroup : nextGroups) {
-						if (JaccardIndex.index(idGroup.docIds, matchIds) >= dupGroupMinSimToRemove) {
+						if (JaccardIndex.indexWithMinThreshold(dupGroupMinSimToRemove, idGroup.docIds, matchIds) >= dupGroupMinSimToRemove) {
 							removedGroups.add(idGroup);
 						}
 					}
 					if (nextPairs != null) {
-						nextPairs.forEach((idPair, count) -> {
-							if (JaccardIndex.index(idPair.value, matchIds) >= dupGroupMinSimToRemove) {
-								removedPairs.add(idPair);
+						for (int slot : nextPairs) {
+							long[] pair = {pairCountMap.firstId(slot), pairCountMap.secondId(slot)};
+							if (JaccardIndex.indexWithMinThreshold(dupGroupMinSimToRemove, pair, matchIds) >= dupGroupMinSimToRemove) {
+								pairCountMap.remove(slot);
 							}
-						});
+						}
 					}
 				}
 			}
@@ -193,9 +298,9 @@ public abstract class AbstractLSHGrouper {
 		// For the remaining pairs after the process above,
 		// If number of appearance of pairs >= dupElementMinAppearance
 		// then add the pair into returning list
-		pairCountMap.forEach((pair, count) -> {
-			if (count >= dupElementMinAppearance && !removedPairs.contains(pair)) {
-				ret.add(pair.value.stream().mapToLong(l -> l).toArray());
+		pairCountMap.forEach((firstId, secondId, count) -> {
+			if (count >= dupElementMinAppearance) {
+				ret.add(new long[]{firstId, secondId});
 			}
 		});
 
@@ -204,6 +309,136 @@ public abstract class AbstractLSHGrouper {
 		return ret;
 	}
 
+	/**
+	 * Put every two IdGroups which have the same value in at least one MinHash column
+	 * (and a Jaccard index >= DUP_GROUP_MIN_SIM_THRESHOLD) into each other's candidates
+	 * <p>
+	 * 1. For each column (in parallel) chain groups by MinHash value in a primitive map
+	 * and collect pairs of each chain, chains longer than MAX_CANDIDATE_RUN_SIZE are capped
+	 * 2. Deduplicate pairs over all columns, then check Jaccard index of each pair once (in parallel)
+	 * 3. Put the remaining pairs into candidates
+	 */
+	private static void putCandidates(List<IdGroup> bigGroups) {
+		final int groupNum = bigGroups.size();
+		LongOpenHashSet[] columnPairs = new LongOpenHashSet[GROUP_MIN_HASH_SIZE];
+		IntStream.range(0, GROUP_MIN_HASH_SIZE).parallel().forEach(hashIndex -> {
+			LongOpenHashSet pairs = new LongOpenHashSet();
+			// value -> last group index having it, next[i] -> previous group index having the same value
+			Int2IntOpenHashMap lastIndexes = new Int2IntOpenHashMap(groupNum);
+			lastIndexes.defaultReturnValue(-1);
+			int[] next = new int[groupNum];
+			for (int i = 0; i < groupNum; i++) {
+				next[i] = lastIndexes.put(bigGroups.get(i).minHash[hashIndex], i);
+			}
+			int[] run = new int[Math.min(groupNum, MAX_CANDIDATE_RUN_SIZE)];
+			lastIndexes.values().forEach((int last) -> {
+				if (next[last] == -1) {
+					return;
+				}
+				int runSize = 0;
+				for (int i = last; i != -1 && runSize < run.length; i = next[i]) {
+					run[runSize++] = i;
+				}
+				if (runSize == MAX_CANDIDATE_RUN_SIZE && next[run[runSize - 1]] != -1) {
+					LOG.debug("Capped a run of bigGroups with the same minHash value at {} with hashIndex: {}", MAX_CANDIDATE_RUN_SIZE, hashIndex);
+				}
+				for (int i = 0; i < runSize - 1; i++) {
+					for (int j = i + 1; j < runSize; j++) {
+						pairs.add(packIndexes(run[i], run[j]));
+					}
+				}
+			});
+			columnPairs[hashIndex] = pairs;
+		});
+
+		LongOpenHashSet allPairs = columnPairs[0];
+		for (int hashIndex = 1; hashIndex < GROUP_MIN_HASH_SIZE; hashIndex++) {
+			allPairs.addAll(columnPairs[hashIndex]);
+			columnPairs[hashIndex] = null;
+		}
+		LOG.debug("Checking {} candidate pairs of bigGroups", allPairs.size());
+
+		long[] similarPairs = Arrays.stream(allPairs.toLongArray()).parallel()
+				.filter(pair -> {
+					IdGroup group1 = bigGroups.get((int) (pair >>> 32));
+					IdGroup group2 = bigGroups.get((int) pair);
+					return JaccardIndex.indexWithMinThreshold(DUP_GROUP_MIN_SIM_THRESHOLD, group1.docIds, group2.docIds) >= DUP_GROUP_MIN_SIM_THRESHOLD;
+				})
+				.toArray();
+		for (long pair : similarPairs) {
+			IdGroup group1 = bigGroups.get((int) (pair >>> 32));
+			IdGroup group2 = bigGroups.get((int) pair);
+			group1.addCandidate(group2);
+			group2.addCandidate(group1);
+		}
+	}
+
+	private static long packIndexes(int index1, int index2) {
+		return index1 < index2 ?
+				(((long) index1) << 32) | index2 :
+				(((long) index2) << 32) | index1;
+	}
+
+	/**
+	 * Near linear alternative of {@link #extractDuplicateGroups()}: every pair of docs of the same bucket
+	 * is streamed into a {@link UnionFindClusterer} as a candidate edge, docs sharing at least
+	 * dupElementMinAppearance buckets are linked, and each connected component is a duplicate group
+	 *
+	 * @return sorted ids of each duplicate group
+	 * @implNote there is no MinHash candidate step nor BFS over IdGroups, cost is the number of
+	 * candidate pairs inside buckets plus a near constant union-find operation per pair,
+	 * buckets larger than {@link UnionFindClusterer#DEFAULT_MAX_PAIRED_GROUP_SIZE} only count pairs of
+	 * consecutive doc ids (see {@link UnionFindClusterer})
+	 */
+	public List<long[]> extractDuplicateGroupsWithUnionFind() {
+		LOG.debug("Filtering small bigGroups, grouping bigGroups and counting pairs");
+		Pair<List<IdGroup>, IdPairCountMap> bigGroupsAndPairs = extractBigGroupsAndPairs();
+		logOversizedBuckets();
+		List<IdGroup> bigGroups = bigGroupsAndPairs.getValue0();
+		IdPairCountMap pairCountMap = bigGroupsAndPairs.getValue1();
+
+		LOG.debug("Streaming {} bigGroups and {} unique pairs into union-find", bigGroups.size(), pairCountMap.size());
+		UnionFindClusterer clusterer = new UnionFindClusterer(dupElementMinAppearance);
+		for (IdGroup group : bigGroups) {
+			clusterer.addCandidateGroup(group.docIds);
+		}
+		pairCountMap.forEach(clusterer::addCandidatePair);
+
+		List<long[]> ret = clusterer.extractGroups();
+		LOG.debug("Extracted {} dupGroups from {} docs", ret.size(), clusterer.getDocCount());
+		return ret;
+	}
+
+	private void logOversizedBuckets() {
+		if (LOG.isDebugEnabled()) {
+			List<OversizedBucket> oversized = getOversizedBuckets();
+			if (!oversized.isEmpty()) {
+				LOG.debug("{} buckets had more than {} docs and were {}", oversized.size(), maxBucketSize,
+						oversizedBucketPolicy == OversizedBucketPolicy.DROP ? "dropped" : "sampled");
+			}
+		}
+	}
+
+	public static class OversizedBucket {
+
+		public final int stage;
+		public final long bucketHash;
+		// Number of docs put into the bucket, including those which were not kept
+		public final long docCount;
+
+		OversizedBucket(int stage, long bucketHash, long docCount) {
+			this.stage = stage;
+			this.bucketHash = bucketHash;
+			this.docCount = docCount;
+		}
+
+		@Override
+		public String toString() {
+			return "OversizedBucket{stage=" + stage + ", bucketHash=" + bucketHash + ", docCount=" + docCount + '}';
+		}
+
+	}
+
 	protected static class IdGroup {
 
 		static final int MIN_HASH_SIZE = GROUP_MIN_HASH_SIZE;
@@ -213,7 +448,8 @@ public abstract class AbstractLSHGrouper {
 		final long bucketHash;
 		// Min hash signature of all doc IDs
 		final int[] minHash;
-		final List<Long> docIds;
+		// Sorted doc IDs
+		final long[] docIds;
 		// Other IdGroups which we consider to be a like
 		Set<IdGroup> candidates = null;
 
@@ -221,24 +457,28 @@ public abstract class AbstractLSHGrouper {
 		 * @implNote Since we have no bucket that have more docs than Integer.MAX_VALUE,
 		 * -> we have no docIds can exceed 4 bytes integer
 		 * -> we can directly use int id for hash function
+		 *
+		 * @param docIds unique doc IDs of the bucket, sorted in place
 		 */
-		IdGroup(long bucketHash, List<Long> docIds) {
+		IdGroup(long bucketHash, long[] docIds) {
+			Arrays.sort(docIds);
 			this.docIds = docIds;
-			int[] intDocIds = new int[docIds.size()];
-			for (int i = 0; i < docIds.size(); i++) {
-				intDocIds[i] = docIds.get(i).intValue();
+			int[] intDocIds = new int[docIds.length];
+			for (int i = 0; i < docIds.length; i++) {
+				intDocIds[i] = (int) docIds[i];
 			}
 			minHash = ID_MIN_HASH.signature(intDocIds);
 			this.bucketHash = bucketHash;
 		}
 
-		void putCandidate(IdGroup idGroup) {
-			if ((candidates == null || !candidates.contains(idGroup)) && JaccardIndex.index(idGroup.docIds, this.docIds) >= DUP_GROUP_MIN_SIM_THRESHOLD) {
-				if (candidates == null) {
-					candidates = new HashSet<>();
-				}
-				candidates.add(idGroup);
+		/**
+		 * Add idGroup to candidates without checking similarity
+		 */
+		void addCandidate(IdGroup idGroup) {
+			if (candidates == null) {
+				candidates = new HashSet<>();
 			}
+			candidates.add(idGroup);
 		}
 
 		/**
@@ -261,35 +501,174 @@ public abstract class AbstractLSHGrouper {
 
 	}
 
-	protected class IdPair {
+	/**
+	 * Open addressing count map of unordered doc id pairs, each pair is stored as two longs
+	 * (smaller id first) in parallel primitive arrays, so it has no object per pair.
+	 * <p>
+	 * A removed pair keeps its slot, so slots stay valid until the next insertion.
+	 */
+	protected static class IdPairCountMap {
+
+		static final int NO_SLOT = -1;
+		private static final float LOAD_FACTOR = 0.75f;
+
+		private long[] firstIds;
+		private long[] secondIds;
+		// 0 for empty slots, negative for removed pairs
+		private int[] counts;
+		private int mask;
+		private int maxFill;
+		private int usedSlots = 0;
+		private int size = 0;
+
+		public IdPairCountMap() {
+			this(16);
+		}
+
+		public IdPairCountMap(int expected) {
+			allocate(HashCommon.arraySize(expected, LOAD_FACTOR));
+		}
 
-		final List<Long> value;
+		private void allocate(int capacity) {
+			firstIds = new long[capacity];
+			secondIds = new long[capacity];
+			counts = new int[capacity];
+			mask = capacity - 1;
+			maxFill = HashCommon.maxFill(capacity, LOAD_FACTOR);
+		}
 
-		IdPair(List<Long> value) {
-			if (value.size() != 2) {
-				throw new IllegalArgumentException("length can't be other than 2");
+		private static int hash(long firstId, long secondId) {
+			return (int) HashCommon.mix(firstId * 0x9E3779B97F4A7C15L + secondId);
+		}
+
+		/**
+		 * Add increment to the count of the pair (id1, id2), in any order
+		 *
+		 * @return count before adding, 0 if the pair was absent
+		 */
+		public int addTo(long id1, long id2, int increment) {
+			if (increment <= 0) {
+				throw new IllegalArgumentException("increment must be greater than 0");
 			}
-			this.value = value;
+			long firstId = Math.min(id1, id2);
+			long secondId = Math.max(id1, id2);
+			int slot = hash(firstId, secondId) & mask;
+			while (counts[slot] != 0) {
+				if (firstIds[slot] == firstId && secondIds[slot] == secondId) {
+					int before = Math.max(counts[slot], 0);
+					if (counts[slot] < 0) {
+						counts[slot] = 0;
+						++size;
+					}
+					counts[slot] += increment;
+					return before;
+				}
+				slot = (slot + 1) & mask;
+			}
+			firstIds[slot] = firstId;
+			secondIds[slot] = secondId;
+			counts[slot] = increment;
+			++size;
+			if (++usedSlots >= maxFill) {
+				rehash(HashCommon.arraySize(usedSlots + 1, LOAD_FACTOR));
+			}
+			return 0;
 		}
 
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) {
-				return true;
+		/**
+		 * Add the counts of all pairs of other
+		 */
+		public void addAll(@NotNull IdPairCountMap other) {
+			other.forEach(this::addTo);
+		}
+
+		private void rehash(int capacity) {
+			long[] oldFirstIds = firstIds;
+			long[] oldSecondIds = secondIds;
+			int[] oldCounts = counts;
+			allocate(capacity);
+			for (int i = 0; i < oldCounts.length; i++) {
+				if (oldCounts[i] != 0) {
+					int slot = hash(oldFirstIds[i], oldSecondIds[i]) & mask;
+					while (counts[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					firstIds[slot] = oldFirstIds[i];
+					secondIds[slot] = oldSecondIds[i];
+					counts[slot] = oldCounts[i];
+				}
 			}
-			if (obj == null || getClass() != obj.getClass()) {
-				return false;
+		}
+
+		/**
+		 * @return slot of the pair (id1, id2) in any order, NO_SLOT if it is absent or removed
+		 */
+		public int slot(long id1, long id2) {
+			long firstId = Math.min(id1, id2);
+			long secondId = Math.max(id1, id2);
+			int slot = hash(firstId, secondId) & mask;
+			while (counts[slot] != 0) {
+				if (firstIds[slot] == firstId && secondIds[slot] == secondId) {
+					return counts[slot] > 0 ? slot : NO_SLOT;
+				}
+				slot = (slot + 1) & mask;
 			}
+			return NO_SLOT;
+		}
 
-			IdPair that = (IdPair) obj;
-			return this.value.equals(that.value);
+		/**
+		 * @return count of the pair (id1, id2), 0 if it is absent or removed
+		 */
+		public int get(long id1, long id2) {
+			int slot = slot(id1, id2);
+			return slot == NO_SLOT ? 0 : counts[slot];
 		}
 
-		@Override
-		public int hashCode() {
-			return value.hashCode();
+		long firstId(int slot) {
+			return firstIds[slot];
+		}
+
+		long secondId(int slot) {
+			return secondIds[slot];
+		}
+
+		int count(int slot) {
+			return Math.max(counts[slot], 0);
+		}
+
+		/**
+		 * Remove the pair at slot, its slot is kept for probing
+		 */
+		void remove(int slot) {
+			if (counts[slot] > 0) {
+				counts[slot] = -counts[slot];
+				--size;
+			}
+		}
+
+		/**
+		 * @return number of pairs which are not removed
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Iterate over pairs which are not removed, smaller id first
+		 */
+		public void forEach(@NotNull PairCountConsumer consumer) {
+			for (int slot = 0; slot < counts.length; slot++) {
+				if (counts[slot] > 0) {
+					consumer.accept(firstIds[slot], secondIds[slot], counts[slot]);
+				}
+			}
+		}
+
+		@FunctionalInterface
+		public interface PairCountConsumer {
+			void accept(long firstId, long secondId, int count);
 		}
 
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Split block bloom filter of 64 bit keys: a key sets one bit in each of the 8 words of one block of 512 bits
+ * (a cache line), so that a lookup costs a single random memory access and a few multiplications,
+ * instead of one memory access per hash function.
+ * Blocks make the false positive rate higher than a classic bloom filter of the same size,
+ * the size is chosen from the blocked false positive rate.
+ */
+public class BlockedBloomFilter {
+
+	private static final int BLOCK_LONGS = 8;
+	private static final int BLOCK_BITS = BLOCK_LONGS * Long.SIZE;
+	private static final int MAX_BLOCK_NUM = Integer.MAX_VALUE / BLOCK_LONGS;
+	private static final double MAX_BITS_PER_KEY = 64;
+	// Odd multipliers giving the bit of each word from the low 32 bits of the key hash
+	private static final int[] SALTS = {
+			0x47B6137B, 0x44974D91, 0x8824AD5B, 0xA2B7289D,
+			0x705495C7, 0x2DF1424B, 0x9EFC4947, 0x5C6BFB31
+	};
+
+	private final long[] bits;
+	private final int blockNum;
+	private final double bitsPerKey;
+	private long insertions = 0;
+
+	/**
+	 * @param expectedInsertions number of keys which will be put
+	 * @param falsePositiveRate  wanted false positive rate once expectedInsertions keys are put, in (0, 1)
+	 */
+	public BlockedBloomFilter(long expectedInsertions, double falsePositiveRate) {
+		if (expectedInsertions < 0) {
+			throw new IllegalArgumentException("expectedInsertions can't be negative");
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+		}
+		double bitsPerKey = 1;
+		while (bitsPerKey < MAX_BITS_PER_KEY && falsePositiveRate(bitsPerKey) > falsePositiveRate) {
+			bitsPerKey += 0.25;
+		}
+		long blocks = Math.max(1, (long) Math.ceil(expectedInsertions * bitsPerKey / BLOCK_BITS));
+		if (blocks > MAX_BLOCK_NUM) {
+			throw new IllegalArgumentException("Too many insertions for the false positive rate");
+		}
+		this.blockNum = (int) blocks;
+		this.bitsPerKey = bitsPerKey;
+		this.bits = new long[blockNum * BLOCK_LONGS];
+	}
+
+	/**
+	 * False positive rate of a split block filter: the number of keys per block follows a Poisson distribution,
+	 * and each word of a block is a bloom filter of 64 bits with a single hash function
+	 */
+	private static double falsePositiveRate(double bitsPerKey) {
+		double meanKeysPerBlock = BLOCK_BITS / bitsPerKey;
+		int maxKeysPerBlock = (int) (meanKeysPerBlock + 10 * Math.sqrt(meanKeysPerBlock) + 10);
+		double ret = 0;
+		double probability = Math.exp(-meanKeysPerBlock);
+		for (int keys = 0; keys <= maxKeysPerBlock; keys++) {
+			if (keys > 0) {
+				probability *= meanKeysPerBlock / keys;
+			}
+			ret += probability * Math.pow(1 - Math.pow(1 - 1.0 / Long.SIZE, keys), BLOCK_LONGS);
+		}
+		return ret;
+	}
+
+	public void put(long key) {
+		long hash = HashCommon.mix(key);
+		int offset = block(hash) * BLOCK_LONGS;
+		int low = (int) hash;
+		for (int i = 0; i < BLOCK_LONGS; i++) {
+			bits[offset + i] |= 1L << ((low * SALTS[i]) >>> 26);
+		}
+		++insertions;
+	}
+
+	/**
+	 * @return false if key was never put, true if it was put or with a probability of false positive rate
+	 */
+	public boolean mightContain(long key) {
+		long hash = HashCommon.mix(key);
+		int offset = block(hash) * BLOCK_LONGS;
+		int low = (int) hash;
+		// No early exit, a mispredicted branch per word costs more than testing all words of the block
+		long missing = 0;
+		for (int i = 0; i < BLOCK_LONGS; i++) {
+			missing |= ~bits[offset + i] & (1L << ((low * SALTS[i]) >>> 26));
+		}
+		return missing == 0;
+	}
+
+	private int block(long hash) {
+		return (int) (((hash >>> 32) * blockNum) >>> 32);
+	}
+
+	/**
+	 * @return false positive rate expected with the keys put so far
+	 */
+	public double getExpectedFalsePositiveRate() {
+		return insertions == 0 ? 0 : falsePositiveRate((double) blockNum * BLOCK_BITS / insertions);
+	}
+
+	/**
+	 * @return memory used by the bits of the filter
+	 */
+	public long getByteSize() {
+		return (long) bits.length * Long.BYTES;
+	}
+
+	public double getBitsPerKey() {
+		return bitsPerKey;
+	}
+
+	public long getInsertions() {
+		return insertions;
+	}
+
+}
@@ -0,0 +1,162 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2ByteMap;
+import it.unimi.dsi.fastutil.ints.Int2ByteMaps;
+import it.unimi.dsi.fastutil.ints.Int2ByteOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Memory-lean {@link LSHBucketHashCounter} for corpora where almost every bucket is a singleton,
+ * which only answers whether a bucket reached bucketMinSize.
+ * <p>
+ * Each stage has two levels:
+ * - a "seen once" bit set indexed by the mixed bucket hash, 1 bit per slot instead of a key and a count
+ * - an exact table of saturating byte counts, only for buckets whose bit was already set
+ * <p>
+ * A bucket seen twice always reaches the exact table, so no large bucket is missed.
+ * A first occurrence which hits a bit set by another bucket is promoted too, so counts may exceed
+ * the real ones by 1, and extra buckets may be extracted, at a rate bounded by the final fill ratio of the bit set
+ * (at most about 12% of singletons with 8 bits per doc, 6% with 16, half of that on average).
+ * Extra buckets only cost memory in the grouper, they never get enough docs to form groups on their own.
+ */
+public class CompactLSHBucketHashCounter {
+
+	public static final int DEFAULT_BITS_PER_DOC = 8;
+
+	private final int stages;
+	private final int bucketMinSize;
+	private final byte saturation;
+	private final long bitMask;
+	private final long[][] seenOnce;
+	private final Int2ByteOpenHashMap[] repeats;
+
+	/**
+	 * @param expectedDocs number of signatures which will be put
+	 */
+	public CompactLSHBucketHashCounter(LSHComputer lsh, long expectedDocs, int bucketMinSize) {
+		this(lsh.lsh.getStages(), expectedDocs, DEFAULT_BITS_PER_DOC, bucketMinSize);
+	}
+
+	/**
+	 * @param expectedDocs  number of signatures which will be put
+	 * @param bitsPerDoc    size of each stage's bit set per expected doc, rounded up to a power of 2 in total
+	 * @param bucketMinSize min size of extracted buckets, between 2 and 127
+	 */
+	public CompactLSHBucketHashCounter(int stages, long expectedDocs, int bitsPerDoc, int bucketMinSize) {
+		if (stages <= 0) {
+			throw new IllegalArgumentException("stages must be greater than 0");
+		}
+		if (expectedDocs <= 0 || bitsPerDoc <= 0) {
+			throw new IllegalArgumentException("expectedDocs and bitsPerDoc must be greater than 0");
+		}
+		if (bucketMinSize < 2 || bucketMinSize > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException("bucketMinSize must be between 2 and " + Byte.MAX_VALUE);
+		}
+		// At most 2^30 longs per stage
+		long bits = Math.min(HashCommon.nextPowerOfTwo(Math.max(expectedDocs * bitsPerDoc, Long.SIZE)), 1L << 36);
+		this.stages = stages;
+		this.bucketMinSize = bucketMinSize;
+		this.saturation = (byte) bucketMinSize;
+		this.bitMask = bits - 1;
+		this.seenOnce = new long[stages][(int) (bits >>> 6)];
+		this.repeats = new Int2ByteOpenHashMap[stages];
+		for (int stage = 0; stage < stages; stage++) {
+			repeats[stage] = new Int2ByteOpenHashMap();
+		}
+	}
+
+	public boolean put(@Nullable int[] lshSignature) {
+		if (lshSignature == null) {
+			return false;
+		}
+		for (int stage = 0; stage < stages; stage++) {
+			int bucket = lshSignature[stage];
+			long bit = HashCommon.mix((long) bucket) & bitMask;
+			long[] words = seenOnce[stage];
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			if ((words[word] & mask) == 0) {
+				words[word] |= mask;
+				continue;
+			}
+			Int2ByteOpenHashMap repeat = repeats[stage];
+			byte count = repeat.get(bucket);
+			if (count == 0) {
+				// The first occurrence is only recorded by its bit, assume it was this bucket
+				repeat.put(bucket, (byte) 2);
+			} else if (count < saturation) {
+				repeat.put(bucket, (byte) (count + 1));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return bucket hashes (see {@link LSHUtils#hashStageBucket(int, int)}) whose count reached bucketMinSize
+	 */
+	public List<Long> extractLargeBucketHash() {
+		List<Long> ret = new ArrayList<>();
+		for (int stage = 0; stage < stages; stage++) {
+			final int finalStage = stage;
+			repeats[stage].forEach((bucketHash, count) -> {
+				if (count >= saturation) {
+					ret.add(LSHUtils.hashStageBucket(finalStage, bucketHash));
+				}
+			});
+		}
+		return ret;
+	}
+
+	/**
+	 * Primitive alternative of {@link #extractLargeBucketHash()}, without a Long per bucket
+	 *
+	 * @param release drop each stage's bit set and table as soon as it is extracted,
+	 *                this counter must not be used anymore after that
+	 * @return for each stage, sorted hashes (see {@link LSHUtils#hashStageBucket(int, int)})
+	 * of buckets whose count reached bucketMinSize
+	 */
+	public long[][] extractLargeBucketHashes(boolean release) {
+		long[][] ret = new long[stages][];
+		for (int stage = 0; stage < stages; stage++) {
+			Int2ByteOpenHashMap repeat = repeats[stage];
+			long[] hashes = new long[repeat.size()];
+			int size = 0;
+			for (Int2ByteMap.Entry entry : Int2ByteMaps.fastIterable(repeat)) {
+				if (entry.getByteValue() >= saturation) {
+					hashes[size++] = LSHUtils.hashStageBucket(stage, entry.getIntKey());
+				}
+			}
+			if (release) {
+				seenOnce[stage] = null;
+				repeats[stage] = new Int2ByteOpenHashMap(0);
+			}
+			ret[stage] = Arrays.copyOf(hashes, size);
+			Arrays.sort(ret[stage]);
+		}
+		return ret;
+	}
+
+	public int getBucketMinSize() {
+		return bucketMinSize;
+	}
+
+	/**
+	 * @return number of buckets kept in exact tables
+	 */
+	public long getRepeatedBucketNum() {
+		long ret = 0;
+		for (Int2ByteOpenHashMap repeat : repeats) {
+			ret += repeat.size();
+		}
+		return ret;
+	}
+
+}
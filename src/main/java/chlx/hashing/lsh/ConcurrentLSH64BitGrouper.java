@@ -0,0 +1,227 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.jcip.annotations.ThreadSafe;
+import org.javatuples.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link LSH64BitGrouper} which can be fed by several threads at the same time.
+ * <p>
+ * Each stage's bucket map is sharded by bucket hash into segments, each segment is locked on its own,
+ * so threads only contend when they append to buckets of the same segment.
+ * Oversized buckets are counted per segment too, under the segment's lock.
+ * Buckets are all known at construction, so segments are never resized while putting.
+ * <p>
+ * Doc ids may be appended to a bucket in any order, but {@link AbstractLSHGrouper.IdGroup} sorts them
+ * and pairs are unordered, so extracted groups are the same as the single-threaded grouper's.
+ * Extraction must only be called after every put has returned.
+ */
+@ThreadSafe
+public class ConcurrentLSH64BitGrouper extends AbstractLSHGrouper {
+
+	private static final int MINIMUM_APPEARANCE_FOR_NOISE_REDUCTION = 2;
+	private static final Logger LOG = LoggerFactory.getLogger(ConcurrentLSH64BitGrouper.class);
+	private static final DocIdPostingList NUL_LIST = new DocIdPostingList();
+
+	private final int stage32bit;
+	private final int stage64Bit;
+	private final boolean enableNoiseReduction;
+	private final LSHComputer.Signature64Converter signatureConverter;
+	// [stage][segment]
+	private final Long2ObjectOpenHashMap<DocIdPostingList>[][] segments;
+	// [stage][segment] bucket hash -> number of docs put, guarded by the segment
+	private final Long2LongOpenHashMap[][] oversizedCounts;
+	private final int segmentMask;
+	private final LongAdder writtenGroupNum = new LongAdder();
+
+	public ConcurrentLSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, Collection<Long>[] bucketHashesToExtract, boolean enableNoiseReduction) {
+		this(signatureConverter, bucketHashesToExtract, enableNoiseReduction, Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	public ConcurrentLSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, long[][] bucketHashesToExtract, boolean enableNoiseReduction) {
+		this(signatureConverter, bucketHashesToExtract, enableNoiseReduction, Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * @param bucketHashesToExtract - List of bucket hashes which we will compare* its elements
+	 *                              to get duplicate groups because we cannot put the whole thing
+	 *                              into memory
+	 * @param concurrencyLevel      - expected number of putting threads, rounded up to a power of 2
+	 *                              as the number of segments per stage
+	 */
+	public ConcurrentLSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, Collection<Long>[] bucketHashesToExtract, boolean enableNoiseReduction, int concurrencyLevel) {
+		this(signatureConverter, enableNoiseReduction, concurrencyLevel);
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			for (Long hash : bucketHashesToExtract[stage]) {
+				segments[stage][segmentOf(hash)].put((long) hash, NUL_LIST);
+			}
+		}
+	}
+
+	/**
+	 * @param bucketHashesToExtract - bucket hashes of each 64 bit stage,
+	 *                              see {@link LSH64BitBucketHashCounter#extractLargeBucketHashes(int, boolean)}
+	 */
+	public ConcurrentLSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, long[][] bucketHashesToExtract, boolean enableNoiseReduction, int concurrencyLevel) {
+		this(signatureConverter, enableNoiseReduction, concurrencyLevel);
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			for (long hash : bucketHashesToExtract[stage]) {
+				segments[stage][segmentOf(hash)].put(hash, NUL_LIST);
+			}
+		}
+	}
+
+	private ConcurrentLSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, boolean enableNoiseReduction, int concurrencyLevel) {
+		if (concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("concurrencyLevel must be greater than 0");
+		}
+		this.signatureConverter = signatureConverter;
+		this.stage32bit = signatureConverter.getReducedStages();
+		this.stage64Bit = signatureConverter.getStage64Bit();
+		this.enableNoiseReduction = enableNoiseReduction;
+
+		int segmentNum = HashCommon.nextPowerOfTwo(concurrencyLevel);
+		this.segmentMask = segmentNum - 1;
+		this.segments = newSegments(stage64Bit, segmentNum);
+		this.oversizedCounts = new Long2LongOpenHashMap[stage64Bit][segmentNum];
+		for (Long2LongOpenHashMap[] stageCounts : oversizedCounts) {
+			for (int segment = 0; segment < segmentNum; segment++) {
+				stageCounts[segment] = new Long2LongOpenHashMap();
+			}
+		}
+
+		this.dupElementMinAppearance = LSH64BitGrouper.DUP_ELEMENT_MIN_APPEARANCE_64;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Long2ObjectOpenHashMap<DocIdPostingList>[][] newSegments(int stage64Bit, int segmentNum) {
+		Long2ObjectOpenHashMap<DocIdPostingList>[][] ret = new Long2ObjectOpenHashMap[stage64Bit][segmentNum];
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			for (int segment = 0; segment < segmentNum; segment++) {
+				ret[stage][segment] = new Long2ObjectOpenHashMap<>();
+			}
+		}
+		return ret;
+	}
+
+	private int segmentOf(long bucketHash) {
+		return (int) HashCommon.mix(bucketHash) & segmentMask;
+	}
+
+	/**
+	 * put docId into presented buckets inorder to extract dupGroups later
+	 * ... with hash validation
+	 */
+	public boolean put(long docId, @Nullable int[] lshSignature) {
+		return !(lshSignature == null || lshSignature.length < stage32bit) &&
+				put(docId, signatureConverter.to64BitSignature(lshSignature));
+	}
+
+	/**
+	 * put docId into presented buckets inorder to extract dupGroups later
+	 * ... with hash validation
+	 */
+	public boolean put(long docId, @Nullable long[] lsh64BitSignature) {
+		return !(lsh64BitSignature == null || lsh64BitSignature.length != stage64Bit) &&
+				(enableNoiseReduction ? putWithNoiseReduction(docId, lsh64BitSignature) : putUnchecked(docId, lsh64BitSignature));
+	}
+
+	/**
+	 * @implNote keys of segments never change after construction, so containsKey needs no lock
+	 */
+	private boolean putWithNoiseReduction(long docId, @NotNull long[] lshSignature) {
+		int count = 0;
+		for (int stage = 0; stage < stage64Bit; ++stage) {
+			if (segments[stage][segmentOf(lshSignature[stage])].containsKey(lshSignature[stage])) {
+				++count;
+			}
+			if (count >= MINIMUM_APPEARANCE_FOR_NOISE_REDUCTION) {
+				return putUnchecked(docId, lshSignature);
+			}
+		}
+		return false;
+	}
+
+	private boolean putUnchecked(long docId, @NotNull long[] lsh64BitSignature) {
+		boolean ret = false;
+		for (int stage = 0; stage < stage64Bit; ++stage) {
+			long bucketHash = lsh64BitSignature[stage];
+			int segmentIndex = segmentOf(bucketHash);
+			Long2ObjectOpenHashMap<DocIdPostingList> segment = segments[stage][segmentIndex];
+			synchronized (segment) {
+				DocIdPostingList docIdList = segment.get(bucketHash);
+				if (docIdList != null) {
+					if (docIdList == NUL_LIST) {
+						writtenGroupNum.increment();
+						docIdList = new DocIdPostingList();
+						segment.put(bucketHash, docIdList);
+					}
+					DocIdPostingList kept = appendToBucket(stage, bucketHash, docIdList, docId, oversizedCounts[stage][segmentIndex]);
+					if (kept != docIdList) {
+						segment.put(bucketHash, kept);
+					}
+					ret = true;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Must only be called after every put has returned
+	 *
+	 * @return buckets which had more than maxBucketSize docs, with their number of docs put
+	 */
+	@NotNull
+	@Override
+	public List<OversizedBucket> getOversizedBuckets() {
+		List<OversizedBucket> ret = new ArrayList<>();
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			final int bucketStage = stage;
+			for (int segment = 0; segment <= segmentMask; segment++) {
+				synchronized (segments[stage][segment]) {
+					oversizedCounts[stage][segment].forEach((bucketHash, docCount) ->
+							ret.add(new OversizedBucket(bucketStage, bucketHash, docCount)));
+				}
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	protected Pair<List<IdGroup>, IdPairCountMap> extractBigGroupsAndPairs() {
+		LOG.debug("Start extracting with {} stages of {} segments from groupBuilder and {} written groups", stage64Bit, segmentMask + 1, writtenGroupNum.sum());
+		List<IdGroup> bigGroups = new ArrayList<>();
+		IdPairCountMap pairCountMap = new IdPairCountMap();
+
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			for (Long2ObjectOpenHashMap<DocIdPostingList> segment : segments[stage]) {
+				synchronized (segment) {
+					segment.forEach((hash, docIdList) -> {
+						if (docIdList.size() > 2) {
+							bigGroups.add(new AbstractLSHGrouper.IdGroup(hash, docIdList.toLongArray()));
+						} else if (docIdList.size() == 2) {
+							pairCountMap.addTo(docIdList.getLong(0), docIdList.getLong(1), 1);
+						}
+					});
+				}
+			}
+		}
+		return new Pair<>(bigGroups, pairCountMap);
+	}
+
+}
@@ -0,0 +1,99 @@
+package chlx.hashing.lsh;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link LSHBucketHashCounter} which can be fed by several threads at the same time.
+ * <p>
+ * Each thread counts into its own local counter without any synchronization,
+ * local counters are merged into one by {@link #toCounter()} after every put has returned.
+ */
+@ThreadSafe
+public class ConcurrentLSHBucketHashCounter {
+
+	private final int stages;
+	private final Queue<LocalCounter> localCounters;
+	private final ThreadLocal<LocalCounter> localCounter;
+	private volatile LSHBucketHashCounter merged = null;
+
+	public ConcurrentLSHBucketHashCounter(LSHComputer lsh) {
+		this(lsh.lsh.getStages());
+	}
+
+	public ConcurrentLSHBucketHashCounter(int stages) {
+		this.stages = stages;
+		this.localCounters = new ConcurrentLinkedQueue<>();
+		this.localCounter = ThreadLocal.withInitial(() -> {
+			LocalCounter local = new LocalCounter(new LSHBucketHashCounter(stages));
+			localCounters.add(local);
+			return local;
+		});
+	}
+
+	/**
+	 * @throws IllegalStateException if local counters were already merged by {@link #toCounter()}
+	 */
+	public boolean put(@Nullable int[] lshSignature) {
+		LSHBucketHashCounter counter = merged == null ? localCounter.get().counter : null;
+		if (counter == null) {
+			throw new IllegalStateException("Counter was already merged, puts are not counted anymore");
+		}
+		return counter.put(lshSignature);
+	}
+
+	/**
+	 * Merge all local counters into one, puts must not be called after that.
+	 * Local counters are detached from their threads while they are merged, so that merged ones can be collected
+	 * even if their threads live on (e.g. pool threads).
+	 *
+	 * @return the merged counter, the same instance on every call
+	 */
+	@NotNull
+	public synchronized LSHBucketHashCounter toCounter() {
+		if (merged == null) {
+			LSHBucketHashCounter ret = null;
+			LocalCounter local;
+			while ((local = localCounters.poll()) != null) {
+				LSHBucketHashCounter counter = local.counter;
+				local.counter = null;
+				if (ret == null) {
+					ret = counter;
+				} else {
+					ret.merge(counter);
+				}
+			}
+			merged = ret != null ? ret : new LSHBucketHashCounter(stages);
+		}
+		return merged;
+	}
+
+	/**
+	 * @see LSHBucketHashCounter#extractLargeBucketHash(int)
+	 */
+	public List<Long> extractLargeBucketHash(int bucketMinSize) {
+		return toCounter().extractLargeBucketHash(bucketMinSize);
+	}
+
+	/**
+	 * Counter of a thread, null once it is merged
+	 */
+	private static class LocalCounter {
+
+		volatile LSHBucketHashCounter counter;
+
+		LocalCounter(LSHBucketHashCounter counter) {
+			this.counter = counter;
+		}
+
+	}
+
+}
@@ -0,0 +1,180 @@
+package chlx.hashing.lsh;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Append-only list of doc ids of a grouper bucket.
+ * The first INLINE_CAPACITY doc ids are kept in plain long fields, so the dominant small buckets cost a single
+ * object of 48 bytes (a LongArrayList of 2 ids costs 56, of 3 ids 72).
+ * Larger buckets are stored as zigzag varint deltas from the previous id: mostly increasing ids close to each other
+ * take 1 or 2 bytes instead of 8, and ids in any order are supported.
+ * <p>
+ * Only appending and reading are cheap, {@link #set(int, long)} re-encodes the whole list of a large bucket.
+ */
+public class DocIdPostingList {
+
+	// Number of doc ids kept inline
+	static final int INLINE_CAPACITY = 3;
+
+	// Inline doc ids, once encoded id2 holds the last doc id
+	private long id0;
+	private long id1;
+	private long id2;
+	private int size = 0;
+	// Encoded doc ids, null until the list grows beyond INLINE_CAPACITY
+	private byte[] bytes = null;
+	private int byteLength = 0;
+
+	public void add(long docId) {
+		if (size < INLINE_CAPACITY) {
+			setInline(size, docId);
+		} else {
+			if (size == INLINE_CAPACITY) {
+				byteLength = 0;
+				encode(id0, 0);
+				encode(id1, id0);
+				encode(id2, id1);
+			}
+			encode(docId, id2);
+			id2 = docId;
+		}
+		++size;
+	}
+
+	private void setInline(int index, long docId) {
+		if (index == 0) {
+			id0 = docId;
+		} else if (index == 1) {
+			id1 = docId;
+		} else {
+			id2 = docId;
+		}
+	}
+
+	private long getInline(int index) {
+		return index == 0 ? id0 : (index == 1 ? id1 : id2);
+	}
+
+	private void encode(long docId, long previous) {
+		long delta = docId - previous;
+		long zigzag = (delta << 1) ^ (delta >> 63);
+		int length = varintLength(zigzag);
+		if (bytes == null || byteLength + length > bytes.length) {
+			int capacity = bytes == null ? 4 * INLINE_CAPACITY : bytes.length + (bytes.length >> 1);
+			bytes = bytes == null ? new byte[Math.max(byteLength + length, capacity)] :
+					Arrays.copyOf(bytes, Math.max(byteLength + length, capacity));
+		}
+		while ((zigzag & ~0x7FL) != 0) {
+			bytes[byteLength++] = (byte) ((zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		bytes[byteLength++] = (byte) zigzag;
+	}
+
+	private static int varintLength(long value) {
+		return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+	}
+
+	/**
+	 * @return all doc ids in insertion order
+	 */
+	@NotNull
+	public long[] toLongArray() {
+		long[] ret = new long[size];
+		if (size <= INLINE_CAPACITY) {
+			for (int i = 0; i < size; i++) {
+				ret[i] = getInline(i);
+			}
+			return ret;
+		}
+		long current = 0;
+		int position = 0;
+		for (int i = 0; i < size; i++) {
+			long zigzag = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				zigzag |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			current += (zigzag >>> 1) ^ -(zigzag & 1);
+			ret[i] = current;
+		}
+		return ret;
+	}
+
+	/**
+	 * Doc id at index without allocating, in O(1) for small lists and O(index) for large ones
+	 */
+	public long getLong(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+		if (size <= INLINE_CAPACITY) {
+			return getInline(index);
+		}
+		long current = 0;
+		int position = 0;
+		for (int i = 0; i <= index; i++) {
+			long zigzag = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				zigzag |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			current += (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+		return current;
+	}
+
+	/**
+	 * Replace the doc id at index, in O(1) for small lists and O(size) for large ones
+	 */
+	public void set(int index, long docId) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+		if (size <= INLINE_CAPACITY) {
+			setInline(index, docId);
+			return;
+		}
+		long[] docIds = toLongArray();
+		docIds[index] = docId;
+		clear();
+		for (long id : docIds) {
+			add(id);
+		}
+	}
+
+	/**
+	 * Remove all doc ids, the encoding buffer is kept
+	 */
+	public void clear() {
+		size = 0;
+		byteLength = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return number of bytes used by encoded doc ids, 0 while they are inline
+	 */
+	public int getByteLength() {
+		return size <= INLINE_CAPACITY ? 0 : byteLength;
+	}
+
+}
@@ -0,0 +1,299 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import org.javatuples.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link LSHGrouper} over the whole index with a fixed heap budget, without counting pass nor bucket hash list.
+ * <p>
+ * Every (bucket hash, doc id) record (see {@link LSHUtils#hashStageBucket(int, int)}) is buffered,
+ * each full buffer is sorted and spilled into a run file of spillDirectory,
+ * then extraction k-way merges all runs (in several passes when there are more than MAX_MERGE_FAN_IN of them)
+ * and streams every bucket having at least 2 docs into the grouping logic.
+ * Heap used by records is 16 bytes * maxRecordsInMemory, disk used is 16 bytes per record.
+ * <p>
+ * Not thread safe. Run files are deleted after extraction, or by {@link #close()}.
+ */
+public class ExternalSortLSHGrouper extends AbstractLSHGrouper implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ExternalSortLSHGrouper.class);
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+	private static final int MAX_MERGE_FAN_IN = 128;
+
+	private final int stages;
+	private final File spillDirectory;
+	private final long[] bucketHashes;
+	private final long[] docIds;
+	private final List<File> runs = new ArrayList<>();
+	private int size = 0;
+
+	/**
+	 * @param lsh                - the exact lsh instance used to compute lsh signatures
+	 * @param spillDirectory     - directory where sorted runs are written
+	 * @param maxRecordsInMemory - number of records buffered before spilling, at least the number of stages
+	 */
+	public ExternalSortLSHGrouper(LSHComputer lsh, @NotNull File spillDirectory, int maxRecordsInMemory) {
+		this.stages = lsh.lsh.getStages();
+		if (maxRecordsInMemory < stages) {
+			throw new IllegalArgumentException("maxRecordsInMemory can't be smaller than stages");
+		}
+		if (!spillDirectory.isDirectory()) {
+			throw new IllegalArgumentException("spillDirectory must be an existing directory");
+		}
+		this.spillDirectory = spillDirectory;
+		this.bucketHashes = new long[maxRecordsInMemory];
+		this.docIds = new long[maxRecordsInMemory];
+	}
+
+	/**
+	 * put docId into all buckets of lshHash
+	 *
+	 * @throws UncheckedIOException if a run cannot be spilled
+	 */
+	@Override
+	public boolean put(long docId, int[] lshHash) {
+		if (lshHash == null || lshHash.length != stages) {
+			return false;
+		}
+		if (size + stages > bucketHashes.length) {
+			spill();
+		}
+		for (int stage = 0; stage < stages; ++stage) {
+			bucketHashes[size] = LSHUtils.hashStageBucket(stage, lshHash[stage]);
+			docIds[size] = docId;
+			++size;
+		}
+		return true;
+	}
+
+	private void spill() {
+		LongArrays.radixSort(bucketHashes, docIds, 0, size);
+		File run;
+		try {
+			run = File.createTempFile("lsh-run-", ".bin", spillDirectory);
+			runs.add(run);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), IO_BUFFER_SIZE))) {
+				for (int i = 0; i < size; i++) {
+					out.writeLong(bucketHashes[i]);
+					out.writeLong(docIds[i]);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not spill a run into " + spillDirectory, e);
+		}
+		LOG.debug("Spilled run {} with {} records", runs.size(), size);
+		size = 0;
+	}
+
+	/**
+	 * @throws UncheckedIOException if runs cannot be read
+	 */
+	@Override
+	protected Pair<List<IdGroup>, IdPairCountMap> extractBigGroupsAndPairs() {
+		// Buckets are built again from the records, and so are their oversized counts
+		clearOversizedBuckets();
+		List<IdGroup> bigGroups = new ArrayList<>();
+		IdPairCountMap pairCountMap = new IdPairCountMap();
+		if (runs.isEmpty()) {
+			// Everything fits in memory, group the sorted buffer directly
+			LongArrays.radixSort(bucketHashes, docIds, 0, size);
+			BucketEmitter emitter = new BucketEmitter(bigGroups, pairCountMap);
+			for (int i = 0; i < size; i++) {
+				emitter.accept(bucketHashes[i], docIds[i]);
+			}
+			emitter.finish();
+			size = 0;
+			return new Pair<>(bigGroups, pairCountMap);
+		}
+		if (size > 0) {
+			spill();
+		}
+
+		try {
+			// Merge runs by at most MAX_MERGE_FAN_IN so that few files are open at the same time
+			while (runs.size() > MAX_MERGE_FAN_IN) {
+				LOG.debug("Merging {} runs into larger runs", runs.size());
+				// Every file stays in runs until it is deleted, so that close() deletes it if the pass fails
+				List<File> toMerge = new ArrayList<>(runs);
+				List<File> nextRuns = new ArrayList<>();
+				for (int from = 0; from < toMerge.size(); from += MAX_MERGE_FAN_IN) {
+					List<File> part = toMerge.subList(from, Math.min(from + MAX_MERGE_FAN_IN, toMerge.size()));
+					if (part.size() == 1) {
+						nextRuns.add(part.get(0));
+						continue;
+					}
+					File run = File.createTempFile("lsh-run-", ".bin", spillDirectory);
+					runs.add(run);
+					nextRuns.add(run);
+					try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), IO_BUFFER_SIZE))) {
+						merge(part, (bucketHash, docId) -> {
+							out.writeLong(bucketHash);
+							out.writeLong(docId);
+						});
+					}
+					for (File merged : part) {
+						Files.deleteIfExists(merged.toPath());
+					}
+					runs.removeAll(part);
+				}
+				runs.clear();
+				runs.addAll(nextRuns);
+			}
+
+			LOG.debug("Merging {} runs", runs.size());
+			BucketEmitter emitter = new BucketEmitter(bigGroups, pairCountMap);
+			merge(runs, emitter);
+			emitter.finish();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not merge runs of " + spillDirectory, e);
+		} finally {
+			close();
+		}
+		return new Pair<>(bigGroups, pairCountMap);
+	}
+
+	/**
+	 * K-way merge of sorted runs, records are given to consumer in (bucket hash, doc id) order
+	 */
+	private static void merge(List<File> runs, RecordConsumer consumer) throws IOException {
+		PriorityQueue<RunReader> readers = new PriorityQueue<>(Math.max(runs.size(), 1));
+		try {
+			for (File run : runs) {
+				RunReader reader = new RunReader(run);
+				if (reader.next()) {
+					readers.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+			while (!readers.isEmpty()) {
+				RunReader reader = readers.poll();
+				consumer.accept(reader.bucketHash, reader.docId);
+				if (reader.next()) {
+					readers.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+		} finally {
+			for (RunReader reader : readers) {
+				reader.closeQuietly();
+			}
+		}
+	}
+
+	/**
+	 * Builds buckets from records sorted by bucket hash, following the oversized bucket policy,
+	 * and emits them with the same rule as {@link LSHGrouper}
+	 */
+	private class BucketEmitter implements RecordConsumer {
+
+		private final List<IdGroup> bigGroups;
+		private final IdPairCountMap pairCountMap;
+		private final DocIdPostingList buffer = new DocIdPostingList();
+		private DocIdPostingList bucket = buffer;
+		private long bucketHash;
+		private boolean started = false;
+
+		BucketEmitter(List<IdGroup> bigGroups, IdPairCountMap pairCountMap) {
+			this.bigGroups = bigGroups;
+			this.pairCountMap = pairCountMap;
+		}
+
+		@Override
+		public void accept(long hash, long docId) {
+			if (started && hash != bucketHash) {
+				finish();
+			}
+			started = true;
+			bucketHash = hash;
+			bucket = appendToBucket(LSHUtils.hashToStage(hash), hash, bucket, docId);
+		}
+
+		void finish() {
+			if (bucket.size() > 2) {
+				bigGroups.add(new AbstractLSHGrouper.IdGroup(bucketHash, bucket.toLongArray()));
+			} else if (bucket.size() == 2) {
+				pairCountMap.addTo(bucket.getLong(0), bucket.getLong(1), 1);
+			}
+			buffer.clear();
+			bucket = buffer;
+		}
+
+	}
+
+	/**
+	 * Delete all run files
+	 */
+	@Override
+	public void close() {
+		for (File run : runs) {
+			try {
+				Files.deleteIfExists(run.toPath());
+			} catch (IOException e) {
+				LOG.debug("Could not delete run {}", run, e);
+			}
+		}
+		runs.clear();
+		size = 0;
+	}
+
+	@FunctionalInterface
+	private interface RecordConsumer {
+		void accept(long bucketHash, long docId) throws IOException;
+	}
+
+	private static class RunReader implements Comparable<RunReader> {
+
+		private final DataInputStream in;
+		private long remaining;
+		long bucketHash;
+		long docId;
+
+		RunReader(File run) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), IO_BUFFER_SIZE));
+			this.remaining = run.length() / (2 * Long.BYTES);
+		}
+
+		boolean next() throws IOException {
+			if (remaining == 0) {
+				return false;
+			}
+			--remaining;
+			bucketHash = in.readLong();
+			docId = in.readLong();
+			return true;
+		}
+
+		void close() throws IOException {
+			in.close();
+		}
+
+		void closeQuietly() {
+			try {
+				in.close();
+			} catch (IOException ignored) {
+			}
+		}
+
+		@Override
+		public int compareTo(@NotNull RunReader o) {
+			int ret = Long.compare(bucketHash, o.bucketHash);
+			return ret != 0 ? ret : Long.compare(docId, o.docId);
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package chlx.hashing.lsh;
+
+import chlx.hashing.minhash.ContinuableMinHash;
+import chlx.hashing.minhash.MinHashSimplified;
+import chlx.hashing.shingles.Shingling;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link LSHComputer} whose shingler pushes every shingle straight into a running
+ * {@link ContinuableMinHash}. Since min is idempotent, duplicated shingles do not change the signature,
+ * so neither the shingle set nor its array copy are built.
+ * <p>
+ * Signatures are the same as the ones of {@link LSHComputer}: the 'too short' check only needs
+ * to know whether there are more than k unique shingles, so only the first k + 1 unique shingles are kept.
+ * As {@link LSHComputer}, an instance must not be shared between threads.
+ */
+public class FusedLSHComputer extends LSHComputer {
+
+	private final ContinuableMinHash accumulator;
+	private final int[] minHashSignature;
+	private final UniqueShingleCounter counter;
+
+	/**
+	 * @param lsh must be backed by {@link MinHashSimplified}
+	 */
+	public FusedLSHComputer(Shingling shingling, LSHMinHash lsh) {
+		super(shingling, lsh);
+		if (!(lsh.getMinHash() instanceof MinHashSimplified)) {
+			throw new IllegalArgumentException("lsh must be backed by MinHashSimplified");
+		}
+		this.accumulator = new ContinuableMinHash((MinHashSimplified) lsh.getMinHash());
+		this.minHashSignature = new int[lsh.getSignatureSize()];
+		this.counter = new UniqueShingleCounter(getK() + 1);
+	}
+
+	@Nullable
+	@Override
+	public int[] signature(@NotNull String s) {
+		return signature(s, new int[getStages()]);
+	}
+
+	/**
+	 * @return scratch's lsh signature buffer, which is overwritten by the next call with the same scratch
+	 */
+	@Nullable
+	@Override
+	public int[] signature(@NotNull String s, @NotNull Scratch scratch) {
+		return signature(s, scratch.lshSignature);
+	}
+
+	@Nullable
+	private int[] signature(@NotNull String s, @NotNull int[] hash) {
+		accumulator.reset();
+		counter.reset();
+		shingling.forEachPositiveShingle(s, 0, s.length(), counter);
+		if (counter.unique > getK()) {
+			accumulator.getSignature(minHashSignature);
+			return lsh.hashSignature(minHashSignature, minHashSignature.length, hash);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Forwards shingles to accumulator and counts unique shingles up to max
+	 */
+	private class UniqueShingleCounter implements IntConsumer {
+
+		private final int[] uniqueShingles;
+		private int unique = 0;
+
+		UniqueShingleCounter(int max) {
+			this.uniqueShingles = new int[max];
+		}
+
+		void reset() {
+			unique = 0;
+		}
+
+		@Override
+		public void accept(int shingle) {
+			accumulator.accept(shingle);
+			if (unique < uniqueShingles.length) {
+				for (int i = 0; i < unique; i++) {
+					if (uniqueShingles[i] == shingle) {
+						return;
+					}
+				}
+				uniqueShingles[unique++] = shingle;
+			}
+		}
+
+	}
+
+}
@@ -30,14 +30,25 @@ public abstract class LSH {
 	 * @return An vector of s integers (between 0 and b-1)
 	 */
 	public final int[] hashSignature(final int[] signature) {
+		return hashSignature(signature, signature.length, new int[stages]);
+	}
 
-		// Create an accumulator for each stage
-		int[] hash = new int[stages];
+	/**
+	 * Hash the first signatureSize elements of a signature into hash without allocating
+	 *
+	 * @param hash output array, its length must be at least stages
+	 * @return hash
+	 */
+	public final int[] hashSignature(final int[] signature, final int signatureSize, final int[] hash) {
+		// Reset the accumulator of each stage
+		for (int stage = 0; stage < stages; stage++) {
+			hash[stage] = 0;
+		}
 
 		// Number of rows per stage
-		int rows = signature.length / stages;
+		int rows = signatureSize / stages;
 
-		for (int i = 0; i < signature.length; i++) {
+		for (int i = 0; i < signatureSize; i++) {
 			int stage = Math.min(i / rows, stages - 1);
 			hash[stage] = (int)
 					((hash[stage] + (long) signature[i] * LARGE_PRIME));
@@ -47,10 +58,55 @@ public abstract class LSH {
 		return hash;
 	}
 
+	/**
+	 * Hash the first signatureSize elements of a 64 bit signature into hash without allocating,
+	 * each element is folded into 32 bits before being accumulated
+	 *
+	 * @param hash output array, its length must be at least stages
+	 * @return hash
+	 */
+	public final int[] hashSignature(final long[] signature, final int signatureSize, final int[] hash) {
+		for (int stage = 0; stage < stages; stage++) {
+			hash[stage] = 0;
+		}
+
+		int rows = signatureSize / stages;
+
+		for (int i = 0; i < signatureSize; i++) {
+			int stage = Math.min(i / rows, stages - 1);
+			int folded = (int) (signature[i] ^ (signature[i] >>> 32));
+			hash[stage] = (int)
+					((hash[stage] + (long) folded * LARGE_PRIME));
+		}
+
+		return hash;
+	}
+
 	public abstract int[] hashShingles(final int[] sortedShingles);
 
 	public abstract int[] signature(final int[] sortedShingles);
 
+	/**
+	 * Computes the min hash signature of the first length shingles into sig without allocating
+	 *
+	 * @param sig output array, its length must be at least {@link #getSignatureSize()}
+	 * @return sig
+	 */
+	public abstract int[] signature(final int[] shingles, final int length, final int[] sig);
+
+	/**
+	 * Hash the first length shingles without allocating
+	 *
+	 * @param sig  min hash signature buffer, its length must be at least {@link #getSignatureSize()}
+	 * @param hash output array, its length must be at least stages
+	 * @return hash
+	 */
+	public final int[] hashShingles(final int[] shingles, final int length, final int[] sig, final int[] hash) {
+		return hashSignature(signature(shingles, length, sig), getSignatureSize(), hash);
+	}
+
+	public abstract int getSignatureSize();
+
 	public int getStages() {
 		return stages;
 	}
@@ -0,0 +1,87 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMaps;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link LSHBucketHashCounter} of 64 bit signatures (see {@link LSHComputer.Signature64Converter}),
+ * whose extracted buckets are handed to {@link LSH64BitGrouper} as primitive arrays.
+ */
+public class LSH64BitBucketHashCounter {
+
+	private final LSHComputer.Signature64Converter signatureConverter;
+	private final int stage32bit;
+	private final int stage64Bit;
+	private final Long2IntOpenHashMap[] counters;
+
+	public LSH64BitBucketHashCounter(LSHComputer.Signature64Converter signatureConverter) {
+		this.signatureConverter = signatureConverter;
+		this.stage32bit = signatureConverter.getReducedStages();
+		this.stage64Bit = signatureConverter.getStage64Bit();
+		this.counters = new Long2IntOpenHashMap[stage64Bit];
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			counters[stage] = new Long2IntOpenHashMap();
+		}
+	}
+
+	public boolean put(@Nullable int[] lshSignature) {
+		return !(lshSignature == null || lshSignature.length < stage32bit) &&
+				put(signatureConverter.to64BitSignature(lshSignature));
+	}
+
+	public boolean put(@Nullable long[] lsh64BitSignature) {
+		if (lsh64BitSignature == null || lsh64BitSignature.length != stage64Bit) {
+			return false;
+		}
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			counters[stage].addTo(lsh64BitSignature[stage], 1);
+		}
+		return true;
+	}
+
+	/**
+	 * @param release drop the stage's counter once it is extracted, the stage must not be put nor extracted anymore
+	 * @return sorted bucket hashes of the stage having at least bucketMinSize signatures
+	 */
+	public long[] extractLargeBucketHashes(int stage, int bucketMinSize, boolean release) {
+		Long2IntOpenHashMap counter = counters[stage];
+		long[] ret = new long[counter.size()];
+		int size = 0;
+		for (Long2IntMap.Entry entry : Long2IntMaps.fastIterable(counter)) {
+			if (entry.getIntValue() >= bucketMinSize) {
+				ret[size++] = entry.getLongKey();
+			}
+		}
+		if (release) {
+			counters[stage] = new Long2IntOpenHashMap(0);
+		}
+		ret = Arrays.copyOf(ret, size);
+		Arrays.sort(ret);
+		return ret;
+	}
+
+	/**
+	 * Extract stages one by one so that, with release, at most one stage is held twice in memory
+	 *
+	 * @return for each 64 bit stage, see {@link #extractLargeBucketHashes(int, int, boolean)}
+	 */
+	public long[][] extractLargeBucketHashes(int bucketMinSize, boolean release) {
+		long[][] ret = new long[stage64Bit][];
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			ret[stage] = extractLargeBucketHashes(stage, bucketMinSize, release);
+		}
+		return ret;
+	}
+
+	public int getStage64Bit() {
+		return stage64Bit;
+	}
+
+}
@@ -1,8 +1,7 @@
 package chlx.hashing.lsh;
 
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongArrayList;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import org.javatuples.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -12,6 +11,8 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
@@ -23,15 +24,20 @@ public class LSH64BitGrouper extends AbstractLSHGrouper {
 
 	private static final int MINIMUM_APPEARANCE_FOR_NOISE_REDUCTION = 2;
 	private static final Logger LOG = LoggerFactory.getLogger(LSH64BitGrouper.class);
-	private static final LongArrayList NUL_LIST = new LongArrayList(0);
+	private static final DocIdPostingList NUL_LIST = new DocIdPostingList();
 
 	private final int stage32bit;
 	private final int stage64Bit;
 	private final boolean enableNoiseReduction;
 	private final LSHComputer.Signature64Converter signatureConverter;
-	private final List<Long2ObjectOpenHashMap<LongArrayList>> groupBuilder;
+	// [stage] bucket hash -> doc ids, an array since extraction threads release stages
+	private final Long2ObjectOpenHashMap<DocIdPostingList>[] groupBuilder;
 
 	private long writtenGroupNum = 0;
+	// Bucket hashes of all stages, checked before groupBuilder by putWithNoiseReduction
+	private BlockedBloomFilter bucketFilter = null;
+	private boolean releaseStagesOnExtraction = false;
+	private ForkJoinPool extractionPool = ForkJoinPool.commonPool();
 
 	/**
 	 * @param bucketHashesToExtract - List of bucket hashes which we will compare* its elements
@@ -39,22 +45,46 @@ public class LSH64BitGrouper extends AbstractLSHGrouper {
 	 *                              into memory
 	 */
 	public LSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, Collection<Long>[] bucketHashesToExtract, boolean enableNoiseReduction) {
-		this.signatureConverter = signatureConverter;
-		this.stage32bit = signatureConverter.getReducedStages();
-		this.stage64Bit = signatureConverter.getStage64Bit();
-		this.enableNoiseReduction = enableNoiseReduction;
-		this.groupBuilder = new ArrayList<>(stage64Bit);
+		this(signatureConverter, enableNoiseReduction);
 		for (int stage = 0; stage < stage64Bit; stage++) {
-			Long2ObjectOpenHashMap<LongArrayList> current = new Long2ObjectOpenHashMap<>();
-			groupBuilder.add(current);
+			Long2ObjectOpenHashMap<DocIdPostingList> current = new Long2ObjectOpenHashMap<>(bucketHashesToExtract[stage].size());
+			groupBuilder[stage] = current;
 			for (Long hash : bucketHashesToExtract[stage]) {
 				current.put(hash, NUL_LIST);
 			}
 		}
+	}
+
+	/**
+	 * @param bucketHashesToExtract - bucket hashes of each 64 bit stage,
+	 *                              see {@link LSH64BitBucketHashCounter#extractLargeBucketHashes(int, boolean)}
+	 */
+	public LSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, long[][] bucketHashesToExtract, boolean enableNoiseReduction) {
+		this(signatureConverter, enableNoiseReduction);
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			Long2ObjectOpenHashMap<DocIdPostingList> current = new Long2ObjectOpenHashMap<>(bucketHashesToExtract[stage].length);
+			groupBuilder[stage] = current;
+			for (long hash : bucketHashesToExtract[stage]) {
+				current.put(hash, NUL_LIST);
+			}
+		}
+	}
+
+	private LSH64BitGrouper(LSHComputer.Signature64Converter signatureConverter, boolean enableNoiseReduction) {
+		this.signatureConverter = signatureConverter;
+		this.stage32bit = signatureConverter.getReducedStages();
+		this.stage64Bit = signatureConverter.getStage64Bit();
+		this.enableNoiseReduction = enableNoiseReduction;
+		this.groupBuilder = newGroupBuilder(stage64Bit);
 
 		this.dupElementMinAppearance = DUP_ELEMENT_MIN_APPEARANCE_64;
 	}
 
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Long2ObjectOpenHashMap<DocIdPostingList>[] newGroupBuilder(int stage64Bit) {
+		return new Long2ObjectOpenHashMap[stage64Bit];
+	}
+
 	/**
 	 * put docId into presented buckets inorder to extract dupGroups later
 	 * ... with hash validation
@@ -64,25 +94,70 @@ public class LSH64BitGrouper extends AbstractLSHGrouper {
 				(enableNoiseReduction ? putWithNoiseReduction(docId, signatureConverter.to64BitSignature(lshSignature)) : putUnchecked(docId, signatureConverter.to64BitSignature(lshSignature)));
 	}
 
+	/**
+	 * Drop the buckets of each stage as soon as extraction consumed them, so that peak memory drops during extraction.
+	 * The grouper can't be put nor extracted anymore afterwards.
+	 */
+	public void setReleaseStagesOnExtraction(boolean releaseStagesOnExtraction) {
+		this.releaseStagesOnExtraction = releaseStagesOnExtraction;
+	}
+
+	/**
+	 * Pool whose threads extract stages in parallel, the common pool by default
+	 */
+	public void setExtractionPool(@NotNull ForkJoinPool extractionPool) {
+		this.extractionPool = extractionPool;
+	}
+
 	@Override
-	protected Pair<List<IdGroup>, Object2IntOpenHashMap<IdPair>> extractBigGroupsAndPairs() {
-		LOG.debug("Start extracting with {} groups from groupBuilder and {} written groups", groupBuilder.size(), writtenGroupNum);
+	protected Pair<List<IdGroup>, IdPairCountMap> extractBigGroupsAndPairs() {
+		LOG.debug("Start extracting with {} groups from groupBuilder and {} written groups", groupBuilder.length, writtenGroupNum);
 		LOG.debug("Filtering small bigGroups, grouping bigGroups and counting pairs");
-		List<IdGroup> bigGroups = new ArrayList<>();
-		Object2IntOpenHashMap<IdPair> pairCountMap = new Object2IntOpenHashMap<>();
 
-		// Converting Map<bucketHash, List<docIds> groupBuilder
-		// into a list of IdGroups, and a count map of IdPair
-		for (int stage = 0; stage < stage64Bit; stage++) {
-			groupBuilder.get(stage).forEach((hash, docIdList) -> {
-				if (docIdList.size() > 2) {
-					bigGroups.add(new AbstractLSHGrouper.IdGroup(hash, docIdList));
-				} else if (docIdList.size() == 2) {
-					pairCountMap.addTo(new AbstractLSHGrouper.IdPair(docIdList), 1);
-				}
-			});
+		// Stages are independent: each thread extracts whole stages into its own partial result,
+		// partial results are merged in stage order. A parallel stream runs in the pool of the task starting it
+		StageExtraction ret = extractionPool.submit(() -> IntStream.range(0, stage64Bit).parallel()
+				.collect(StageExtraction::new, this::extractStage, StageExtraction::merge)).join();
+		return new Pair<>(ret.bigGroups, ret.pairCountMap);
+	}
+
+	/**
+	 * Converting Map<bucketHash, List<docIds> of the stage
+	 * into IdGroups, and counts of IdPair
+	 */
+	private void extractStage(StageExtraction ret, int stage) {
+		Long2ObjectOpenHashMap<DocIdPostingList> stageGroupBuilder = groupBuilder[stage];
+		if (releaseStagesOnExtraction) {
+			groupBuilder[stage] = new Long2ObjectOpenHashMap<>(0);
+		}
+		stageGroupBuilder.forEach((hash, docIdList) -> {
+			if (docIdList.size() > 2) {
+				ret.bigGroups.add(new AbstractLSHGrouper.IdGroup(hash, docIdList.toLongArray()));
+			} else if (docIdList.size() == 2) {
+				ret.pairCountMap.addTo(docIdList.getLong(0), docIdList.getLong(1), 1);
+			}
+		});
+	}
+
+	/**
+	 * Partial result of the extraction of some stages
+	 */
+	private static class StageExtraction {
+
+		final List<IdGroup> bigGroups = new ArrayList<>();
+		IdPairCountMap pairCountMap = new IdPairCountMap();
+
+		void merge(StageExtraction other) {
+			bigGroups.addAll(other.bigGroups);
+			// Add the smaller map into the larger one
+			if (other.pairCountMap.size() > pairCountMap.size()) {
+				other.pairCountMap.addAll(pairCountMap);
+				pairCountMap = other.pairCountMap;
+			} else {
+				pairCountMap.addAll(other.pairCountMap);
+			}
 		}
-		return new Pair<>(bigGroups, pairCountMap);
+
 	}
 
 	/**
@@ -100,9 +175,12 @@ public class LSH64BitGrouper extends AbstractLSHGrouper {
 	 * before putting docId into presented buckets inorder to extract dupGroups later
 	 */
 	private boolean putWithNoiseReduction(long docId, @NotNull long[] lshSignature) {
+		if (bucketFilter != null && !mightAppear(lshSignature)) {
+			return false;
+		}
 		int count = 0;
 		for (int stage = 0; stage < stage64Bit; ++stage) {
-			if (groupBuilder.get(stage).containsKey(lshSignature[stage])) {
+			if (groupBuilder[stage].containsKey(lshSignature[stage])) {
 				++count;
 			}
 			if (count >= MINIMUM_APPEARANCE_FOR_NOISE_REDUCTION) {
@@ -113,20 +191,68 @@ public class LSH64BitGrouper extends AbstractLSHGrouper {
 	}
 
 
+	/**
+	 * @return false if lshSignature surely has less than MINIMUM_APPEARANCE_FOR_NOISE_REDUCTION buckets in groupBuilder
+	 */
+	private boolean mightAppear(@NotNull long[] lshSignature) {
+		int count = 0;
+		for (int stage = 0; stage < stage64Bit; ++stage) {
+			if (bucketFilter.mightContain(bucketFilterKey(stage, lshSignature[stage])) &&
+					++count >= MINIMUM_APPEARANCE_FOR_NOISE_REDUCTION) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Build a bloom filter over the bucket hashes of all stages, so that with noise reduction
+	 * most docs matching nothing are rejected by one cache line read per stage,
+	 * without probing the large maps of groupBuilder. Only used when noise reduction is enabled,
+	 * and only worth it when the maps are much larger than the CPU cache.
+	 *
+	 * @param falsePositiveRate false positive rate of the filter, in (0, 1)
+	 * @return memory used by the filter in bytes
+	 */
+	public long enableBucketFilter(double falsePositiveRate) {
+		long size = 0;
+		for (Long2ObjectOpenHashMap<DocIdPostingList> current : groupBuilder) {
+			size += current.size();
+		}
+		BlockedBloomFilter filter = new BlockedBloomFilter(size, falsePositiveRate);
+		for (int stage = 0; stage < stage64Bit; stage++) {
+			LongIterator hashes = groupBuilder[stage].keySet().iterator();
+			while (hashes.hasNext()) {
+				filter.put(bucketFilterKey(stage, hashes.nextLong()));
+			}
+		}
+		LOG.debug("Bucket filter of {} bytes for {} bucket hashes, {} bits per hash, expected false positive rate {}",
+				filter.getByteSize(), size, filter.getBitsPerKey(), filter.getExpectedFalsePositiveRate());
+		this.bucketFilter = filter;
+		return filter.getByteSize();
+	}
+
+	private static long bucketFilterKey(int stage, long bucketHash) {
+		return bucketHash + (stage + 1) * 0x9E3779B97F4A7C15L;
+	}
+
 	/**
 	 * put docId into presented buckets inorder to extract dupGroups later
 	 */
 	private boolean putUnchecked(long docId, @NotNull long[] lsh64BitSignature) {
 		boolean ret = false;
 		for (int stage = 0; stage < stage64Bit; ++stage) {
-			LongArrayList docIdList = groupBuilder.get(stage).get(lsh64BitSignature[stage]);
+			DocIdPostingList docIdList = groupBuilder[stage].get(lsh64BitSignature[stage]);
 			if (docIdList != null) {
 				if (docIdList == NUL_LIST) {
 					++writtenGroupNum;
-					docIdList = new LongArrayList(2);
-					groupBuilder.get(stage).put(lsh64BitSignature[stage], docIdList);
+					docIdList = new DocIdPostingList();
+					groupBuilder[stage].put(lsh64BitSignature[stage], docIdList);
+				}
+				DocIdPostingList kept = appendToBucket(stage, lsh64BitSignature[stage], docIdList, docId);
+				if (kept != docIdList) {
+					groupBuilder[stage].put(lsh64BitSignature[stage], kept);
 				}
-				docIdList.add(docId);
 				ret = true;
 			}
 		}
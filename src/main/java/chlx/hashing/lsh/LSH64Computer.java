@@ -0,0 +1,99 @@
+package chlx.hashing.lsh;
+
+import chlx.hashing.shingles.Shingling64;
+import chlx.hashing.shingles.Shingling64Utils;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link LSHComputer} running on 64 bit shingles and {@link LSHMinHash64} end to end,
+ * its lsh signatures can be used anywhere the ones of {@link LSHComputer} are
+ */
+public class LSH64Computer extends LSHComputer {
+
+	private final Shingling64 shingling64;
+	private final LSHMinHash64 lsh64;
+
+	public LSH64Computer(Shingling64 shingling64, LSHMinHash64 lsh64) {
+		super(shingling64.getK(), lsh64);
+		this.shingling64 = shingling64;
+		this.lsh64 = lsh64;
+	}
+
+	@Nullable
+	@Override
+	public int[] signature(@NotNull String s) {
+		long[] shingles = shingling64.toPositiveShingles64(s);
+		if (shingles.length > getK()) {
+			return lsh64.hashShingles64(shingles);
+		} else {
+			return null;
+		}
+	}
+
+	@Nullable
+	@Override
+	public int[] signature(@NotNull List<String> words) {
+		if (words.size() < getK()) {
+			return null;
+		}
+
+		LongOpenHashSet uniqueShingles = new LongOpenHashSet();
+		words.forEach(word -> uniqueShingles.add(Shingling64Utils.toPositiveShingle(word)));
+
+		if (uniqueShingles.size() < getK()) {
+			return null;
+		}
+
+		return lsh64.hashShingles64(uniqueShingles.toLongArray());
+	}
+
+	@Override
+	public Scratch createScratch() {
+		return new Scratch(0, lsh64.getSignatureSize(), getStages());
+	}
+
+	@Nullable
+	@Override
+	public int[] signature(@NotNull String s, @NotNull Scratch scratch) {
+		int size = shingling64.toPositiveShingles64(s, 0, s.length(), scratch.shingleSet64);
+		if (size > getK()) {
+			return hashShingles(scratch);
+		} else {
+			return null;
+		}
+	}
+
+	@Nullable
+	@Override
+	public int[] signature(@NotNull List<String> words, @NotNull Scratch scratch) {
+		if (words.size() < getK()) {
+			return null;
+		}
+
+		LongOpenHashSet uniqueShingles = scratch.shingleSet64;
+		uniqueShingles.clear();
+		for (int i = 0; i < words.size(); i++) {
+			uniqueShingles.add(Shingling64Utils.toPositiveShingle(words.get(i)));
+		}
+
+		if (uniqueShingles.size() < getK()) {
+			return null;
+		}
+
+		return hashShingles(scratch);
+	}
+
+	private int[] hashShingles(Scratch scratch) {
+		scratch.shingles64 = scratch.shingleSet64.toArray(scratch.shingles64);
+		return lsh64.hashShingles64(scratch.shingles64, scratch.shingleSet64.size(), scratch.minHashSignature64, scratch.lshSignature);
+	}
+
+
+}
@@ -1,9 +1,16 @@
 package chlx.hashing.lsh;
 
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMaps;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -16,7 +23,17 @@ public class LSHBucketHashCounter {
 	private final int stages;
 
 	public LSHBucketHashCounter(LSHComputer lsh) {
-		this.stages = lsh.lsh.getStages();
+		this(lsh.lsh.getStages());
+	}
+
+	/**
+	 * @param stages number of stages of the lsh signatures to be put
+	 */
+	public LSHBucketHashCounter(int stages) {
+		if (stages <= 0) {
+			throw new IllegalArgumentException("stages must be greater than 0");
+		}
+		this.stages = stages;
 		this.counters = new ArrayList<>(stages);
 		for (int i = 0; i < stages; i++) {
 			counters.add(new Int2IntOpenHashMap());
@@ -33,6 +50,54 @@ public class LSHBucketHashCounter {
 		return true;
 	}
 
+	/**
+	 * Add all counts of other (e.g. built on another thread or partition of the corpus) into this counter,
+	 * other is not modified
+	 */
+	public void merge(@NotNull LSHBucketHashCounter other) {
+		if (other.stages != stages) {
+			throw new IllegalArgumentException("Counters must have the same number of stages");
+		}
+		for (int stage = 0; stage < stages; stage++) {
+			Int2IntOpenHashMap counter = counters.get(stage);
+			for (Int2IntMap.Entry entry : Int2IntMaps.fastIterable(other.counters.get(stage))) {
+				counter.addTo(entry.getIntKey(), entry.getIntValue());
+			}
+		}
+	}
+
+	/**
+	 * Write all counts so that a counter of another process can {@link #merge} them after {@link #readFrom}
+	 */
+	public void writeTo(@NotNull DataOutput out) throws IOException {
+		out.writeInt(stages);
+		for (Int2IntOpenHashMap counter : counters) {
+			out.writeInt(counter.size());
+			for (Int2IntMap.Entry entry : Int2IntMaps.fastIterable(counter)) {
+				out.writeInt(entry.getIntKey());
+				out.writeInt(entry.getIntValue());
+			}
+		}
+	}
+
+	@NotNull
+	public static LSHBucketHashCounter readFrom(@NotNull DataInput in) throws IOException {
+		LSHBucketHashCounter ret = new LSHBucketHashCounter(in.readInt());
+		for (int stage = 0; stage < ret.stages; stage++) {
+			int size = in.readInt();
+			Int2IntOpenHashMap counter = new Int2IntOpenHashMap(size);
+			ret.counters.set(stage, counter);
+			for (int i = 0; i < size; i++) {
+				counter.put(in.readInt(), in.readInt());
+			}
+		}
+		return ret;
+	}
+
+	public int getStages() {
+		return stages;
+	}
+
 	public List<Long> extractLargeBucketHash(int bucketMinSize) {
 		List<Long> ret = new ArrayList<>();
 		for (int stage = 0; stage < stages; stage++) {
@@ -46,4 +111,32 @@ public class LSHBucketHashCounter {
 		return ret;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Primitive alternative of {@link #extractLargeBucketHash(int)}, without a Long per bucket
+	 *
+	 * @param release drop each stage's counter as soon as it is extracted,
+	 *                this counter must not be used anymore after that
+	 * @return for each stage, sorted hashes (see {@link LSHUtils#hashStageBucket(int, int)})
+	 * of buckets having at least bucketMinSize signatures
+	 */
+	public long[][] extractLargeBucketHashes(int bucketMinSize, boolean release) {
+		long[][] ret = new long[stages][];
+		for (int stage = 0; stage < stages; stage++) {
+			Int2IntOpenHashMap counter = counters.get(stage);
+			long[] hashes = new long[counter.size()];
+			int size = 0;
+			for (Int2IntMap.Entry entry : Int2IntMaps.fastIterable(counter)) {
+				if (entry.getIntValue() >= bucketMinSize) {
+					hashes[size++] = LSHUtils.hashStageBucket(stage, entry.getIntKey());
+				}
+			}
+			if (release) {
+				counters.set(stage, new Int2IntOpenHashMap(0));
+			}
+			ret[stage] = Arrays.copyOf(hashes, size);
+			Arrays.sort(ret[stage]);
+		}
+		return ret;
+	}
+
+}
@@ -1,7 +1,9 @@
 package chlx.hashing.lsh;
 
 import chlx.hashing.shingles.Shingling;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -14,6 +16,8 @@ import java.util.List;
  */
 public class LSHComputer {
 
+	private static final int MAX_64_BIT_KEYS = 1 << 20;
+
 	protected final Shingling shingling;
 	protected final LSH lsh;
 	//	 K value of Shingling
@@ -25,10 +29,23 @@ public class LSHComputer {
 		this.lsh = lsh;
 	}
 
+	/**
+	 * For subclasses which use another kind of shingler, {@link #shingling} is null
+	 */
+	protected LSHComputer(int k, LSH lsh) {
+		this.shingling = null;
+		this.k = k;
+		this.lsh = lsh;
+	}
+
 	public int getStages() {
 		return lsh.getStages();
 	}
 
+	public int getK() {
+		return k;
+	}
+
 	@Nullable
 	public int[] signature(@NotNull String s) {
 		int[] sortedShingles = shingling.toPositiveShingles(s);
@@ -62,6 +79,102 @@ public class LSHComputer {
 		return lsh.hashShingles(shingles);
 	}
 
+	public Scratch createScratch() {
+		return new Scratch(lsh.getSignatureSize(), 0, getStages());
+	}
+
+	/**
+	 * Same as {@link #signature(String)} but every intermediate array lives in scratch
+	 *
+	 * @return scratch's lsh signature buffer, which is overwritten by the next call with the same scratch
+	 */
+	@Nullable
+	public int[] signature(@NotNull String s, @NotNull Scratch scratch) {
+		int size = shingling.toPositiveShingles(s, 0, s.length(), scratch.shingleSet);
+		if (size > k) {
+			return scratch.hashShingles(lsh);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Same as {@link #signature(List)} but every intermediate array lives in scratch
+	 *
+	 * @return scratch's lsh signature buffer, which is overwritten by the next call with the same scratch
+	 */
+	@Nullable
+	public int[] signature(@NotNull List<String> words, @NotNull Scratch scratch) {
+		if (words.size() < k) {
+			return null;
+		}
+
+		IntOpenHashSet uniqueShingles = scratch.shingleSet;
+		uniqueShingles.clear();
+		for (int i = 0; i < words.size(); i++) {
+			int hash = Math.abs(words.get(i).hashCode());
+			if (hash >= 0) {
+				uniqueShingles.add(hash);
+			}
+		}
+
+		if (uniqueShingles.size() < k) {
+			return null;
+		}
+
+		return scratch.hashShingles(lsh);
+	}
+
+	/**
+	 * Same as {@link #signature(String)} then {@link Signature64Converter#to64BitSignature(int[])}
+	 * but every intermediate array lives in scratch
+	 *
+	 * @return scratch's 64 bit signature buffer, which is overwritten by the next call with the same scratch
+	 */
+	@Nullable
+	public long[] signature64(@NotNull String s, @NotNull Signature64Converter converter, @NotNull Scratch scratch) {
+		int[] lshSignature = signature(s, scratch);
+		if (lshSignature == null) {
+			return null;
+		}
+		return converter.to64BitSignature(lshSignature, scratch.signature64(converter.getStage64Bit()));
+	}
+
+	/**
+	 * Reusable buffers of a single thread for the allocation free signature methods,
+	 * buffers only grow when a document has more shingles than any previous one
+	 */
+	public static class Scratch {
+
+		final IntOpenHashSet shingleSet = new IntOpenHashSet();
+		final LongOpenHashSet shingleSet64 = new LongOpenHashSet();
+		final int[] minHashSignature;
+		final long[] minHashSignature64;
+		final int[] lshSignature;
+		int[] shingles = new int[0];
+		long[] shingles64 = new long[0];
+		private long[] signature64 = null;
+
+		Scratch(int signatureSize, int signatureSize64, int stages) {
+			this.minHashSignature = new int[signatureSize];
+			this.minHashSignature64 = new long[signatureSize64];
+			this.lshSignature = new int[stages];
+		}
+
+		private int[] hashShingles(LSH lsh) {
+			shingles = shingleSet.toArray(shingles);
+			return lsh.hashShingles(shingles, shingleSet.size(), minHashSignature, lshSignature);
+		}
+
+		long[] signature64(int stage64Bit) {
+			if (signature64 == null || signature64.length != stage64Bit) {
+				signature64 = new long[stage64Bit];
+			}
+			return signature64;
+		}
+
+	}
+
 	public Signature64Converter createSig64Converter() {
 		return new Signature64Converter(getStages(), Signature64Converter.NO_DUP_ELEMENT_MIN_APPEARANCE);
 	}
@@ -70,14 +183,91 @@ public class LSHComputer {
 		return new Signature64Converter(reducedStages, dupElementMinAppearance);
 	}
 
+	/**
+	 * Converter whose 64 bit keys are every combination of stagesPerKey among the first reducedStages stage hashes:
+	 * more stages per key give a steeper S-curve (see {@link Signature64Converter#sCurveReport(int)})
+	 * but (reducedStages choose stagesPerKey) keys per doc
+	 */
+	public Signature64Converter createBandCombinationConverter(int reducedStages, int stagesPerKey) {
+		return new Signature64Converter(combinationTable(reducedStages, stagesPerKey), reducedStages, stagesPerKey);
+	}
+
+	/**
+	 * @return stages of every combination of stagesPerKey among stages, in lexicographic order
+	 */
+	private static int[] combinationTable(int stages, int stagesPerKey) {
+		if (stagesPerKey <= 0 || stagesPerKey > stages) {
+			throw new IllegalArgumentException("stagesPerKey must be between 1 and stages");
+		}
+		long keys = 1;
+		for (int i = 0; i < stagesPerKey; i++) {
+			keys = keys * (stages - i) / (i + 1);
+		}
+		if (keys > MAX_64_BIT_KEYS) {
+			throw new IllegalArgumentException("Too many keys per doc: " + keys);
+		}
+		int[] ret = new int[(int) keys * stagesPerKey];
+		int[] combination = new int[stagesPerKey];
+		for (int i = 0; i < stagesPerKey; i++) {
+			combination[i] = i;
+		}
+		for (int key = 0; key < keys; key++) {
+			System.arraycopy(combination, 0, ret, key * stagesPerKey, stagesPerKey);
+			// Next combination: increase the last stage which can be increased, and reset the following ones
+			int i = stagesPerKey - 1;
+			while (i >= 0 && combination[i] == stages - stagesPerKey + i) {
+				--i;
+			}
+			if (i >= 0) {
+				++combination[i];
+				for (int j = i + 1; j < stagesPerKey; j++) {
+					combination[j] = combination[j - 1] + 1;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Why does this reduction work..?!
+	 * ..I just hate explaining Maths (_ _!)
+	 */
+	private static int[] reducedPairTable(int reducedStages, int dupElementMinAppearance, int stage64Bit) {
+		int[] ret = new int[stage64Bit * 2];
+		int index = 0;
+		for (int i = 0; i < reducedStages - dupElementMinAppearance; i++) {
+			for (int j = i + 1; j < reducedStages; j++) {
+				ret[index++] = i;
+				ret[index++] = j;
+			}
+		}
+
+		if (index < ret.length) {
+			ret[index++] = reducedStages - dupElementMinAppearance;
+			ret[index++] = reducedStages - dupElementMinAppearance + 1;
+		}
+
+		if (index < ret.length) {
+			ret[index++] = reducedStages - 2;
+			ret[index] = reducedStages - 1;
+		}
+
+		return ret;
+	}
+
 	public class Signature64Converter {
 
 		public static final int NO_DUP_ELEMENT_MIN_APPEARANCE = 0;
 
-		private final boolean reduceSigSize;
-		private final int dupElementMinAppearance;
+		private static final int MAX_ENUMERATED_STAGES = 20;
+
 		private final int reducedStages;
 		private final int stage64Bit;
+		private final int stagesPerKey;
+		// Stages combined by each key: key -> keyStages[key * stagesPerKey .. (key + 1) * stagesPerKey - 1]
+		private final int[] keyStages;
+		// Whether keys are all combinations of stagesPerKey stages, then the S-curve has a closed form
+		private final boolean fullCombination;
 
 		private Signature64Converter(int reducedStages, int dupElementMinAppearance) {
 			if (reducedStages > getStages()) {
@@ -89,11 +279,24 @@ public class LSHComputer {
 					(dupElementMinAppearance > reducedStages / 2 && dupElementMinAppearance <= 4)) ?
 					NO_DUP_ELEMENT_MIN_APPEARANCE : (dupElementMinAppearance > 4 ? 4 : dupElementMinAppearance);
 
-			this.dupElementMinAppearance = dupElementMinAppearance;
-			this.reduceSigSize = dupElementMinAppearance != NO_DUP_ELEMENT_MIN_APPEARANCE;
 			this.reducedStages = reducedStages;
 			this.stage64Bit = compute64BitStage(reducedStages, dupElementMinAppearance);
+			this.stagesPerKey = 2;
+			this.fullCombination = dupElementMinAppearance == NO_DUP_ELEMENT_MIN_APPEARANCE;
+			// Less than 2 stages give no pair, hence no 64 bit stage
+			this.keyStages = reducedStages < 2 ? new int[0] : (fullCombination ?
+					combinationTable(reducedStages, 2) : reducedPairTable(reducedStages, dupElementMinAppearance, stage64Bit));
+		}
 
+		private Signature64Converter(int[] keyStages, int reducedStages, int stagesPerKey) {
+			if (reducedStages > getStages()) {
+				throw new IllegalArgumentException("reduced stage 32 size cannot be bigger than LSHComputer's stages");
+			}
+			this.reducedStages = reducedStages;
+			this.stage64Bit = keyStages.length / stagesPerKey;
+			this.stagesPerKey = stagesPerKey;
+			this.fullCombination = true;
+			this.keyStages = keyStages;
 		}
 
 		public int getStage64Bit() {
@@ -104,6 +307,10 @@ public class LSHComputer {
 			return reducedStages;
 		}
 
+		public int getStagesPerKey() {
+			return stagesPerKey;
+		}
+
 		public int getNoReducedStage64Bit() {
 			return compute64BitStage(getStages(), NO_DUP_ELEMENT_MIN_APPEARANCE);
 		}
@@ -123,51 +330,108 @@ public class LSHComputer {
 		}
 
 		public long[] to64BitSignature(@NotNull int[] lshSignature) {
-			return reduceSigSize ? toReducedSigSizeSignature(lshSignature) : toFullSignature(lshSignature);
+			return to64BitSignature(lshSignature, new long[stage64Bit]);
 		}
 
 		/**
-		 * Why does this reduction work..?!
-		 * ..I just hate explaining Maths (_ _!)
+		 * @param ret output array, its length must be at least stage64Bit
+		 * @return ret
 		 */
-		private long[] toReducedSigSizeSignature(@NotNull int[] lshSignature) {
-			long[] ret = new long[stage64Bit];
-			int index = 0;
-			for (int i = 0; i < reducedStages - dupElementMinAppearance; i++) {
-				for (int j = i + 1; j < reducedStages; j++) {
-					ret[index] = combineHashes(lshSignature[i], lshSignature[j]);
-					++index;
+		public long[] to64BitSignature(@NotNull int[] lshSignature, @NotNull long[] ret) {
+			int[] table = keyStages;
+			if (stagesPerKey == 2) {
+				for (int key = 0, from = 0; key < stage64Bit; key++, from += 2) {
+					ret[key] = combineHashes(lshSignature[table[from]], lshSignature[table[from + 1]]);
 				}
+				return ret;
 			}
-
-			if (index < stage64Bit) {
-				ret[index] = combineHashes(lshSignature[reducedStages - dupElementMinAppearance], lshSignature[reducedStages - dupElementMinAppearance + 1]);
-				++index;
-			}
-
-			if (index < stage64Bit) {
-				ret[index] = combineHashes(lshSignature[reducedStages - 2], lshSignature[reducedStages - 1]);
+			for (int key = 0, from = 0; key < stage64Bit; key++, from += stagesPerKey) {
+				long hash = stagesPerKey == 1 ? lshSignature[table[from]] & 0xffffffffL :
+						combineHashes(lshSignature[table[from]], lshSignature[table[from + 1]]);
+				for (int i = 2; i < stagesPerKey; i++) {
+					hash = HashCommon.mix(hash) ^ (lshSignature[table[from + i]] & 0xffffffffL);
+				}
+				ret[key] = hash;
 			}
-
 			return ret;
 		}
 
+		private long combineHashes(int int1, int int2) {
+			return (((long) int1) << 32) | (int2 & 0xffffffffL);
+		}
 
-		// Simply combine paris of lsh signature's hashes together
-		private long[] toFullSignature(@NotNull int[] lshSignature) {
-			long[] ret = new long[stage64Bit];
-			int index = 0;
-			for (int i = 0; i < reducedStages - 1; i++) {
-				for (int j = i + 1; j < reducedStages; j++) {
-					ret[index] = combineHashes(lshSignature[i], lshSignature[j]);
-					++index;
+		/**
+		 * S-curve of this converter: probability that 2 docs whose Jaccard similarity is similarity
+		 * share at least minSharedKeys 64 bit keys, when a stage hash is shared with probability similarity ^ rows
+		 * (rows = min hash signature size / stages).
+		 * With the 64 bit groupers, minSharedKeys is {@link LSH64BitGrouper#DUP_ELEMENT_MIN_APPEARANCE_64}.
+		 *
+		 * @throws IllegalStateException if this is a reduced converter of more than 20 stages: its keys are not
+		 *                               all combinations of stages, so sets of shared stages are enumerated
+		 */
+		public double candidateProbability(double similarity, int minSharedKeys) {
+			if (similarity < 0 || similarity > 1) {
+				throw new IllegalArgumentException("similarity must be between 0 and 1");
+			}
+			int rows = Math.max(1, lsh.getSignatureSize() / getStages());
+			double p = Math.pow(similarity, rows);
+			if (fullCombination) {
+				// k shared stages share (k choose stagesPerKey) keys
+				double ret = 0;
+				double sharedKeys = 0;
+				double stageCombinations = 1;
+				for (int k = 0; k <= reducedStages; k++) {
+					if (k > 0) {
+						stageCombinations = stageCombinations * (reducedStages - k + 1) / k;
+					}
+					if (k >= stagesPerKey) {
+						sharedKeys = k == stagesPerKey ? 1 : sharedKeys * k / (k - stagesPerKey);
+					}
+					if (sharedKeys >= minSharedKeys) {
+						ret += stageCombinations * Math.pow(p, k) * Math.pow(1 - p, reducedStages - k);
+					}
+				}
+				return ret;
+			}
+			if (reducedStages > MAX_ENUMERATED_STAGES) {
+				throw new IllegalStateException("S-curve of a reduced converter is limited to " + MAX_ENUMERATED_STAGES + " stages");
+			}
+			// Enumerate every set of shared stages
+			int[] keyMasks = new int[stage64Bit];
+			for (int key = 0; key < stage64Bit; key++) {
+				for (int i = 0; i < stagesPerKey; i++) {
+					keyMasks[key] |= 1 << keyStages[key * stagesPerKey + i];
+				}
+			}
+			double ret = 0;
+			for (int shared = 0; shared < 1 << reducedStages; shared++) {
+				int sharedKeys = 0;
+				for (int keyMask : keyMasks) {
+					if ((keyMask & ~shared) == 0) {
+						++sharedKeys;
+					}
+				}
+				if (sharedKeys >= minSharedKeys) {
+					int k = Integer.bitCount(shared);
+					ret += Math.pow(p, k) * Math.pow(1 - p, reducedStages - k);
 				}
 			}
 			return ret;
 		}
 
-		private long combineHashes(int int1, int int2) {
-			return (((long) int1) << 32) | (int2 & 0xffffffffL);
+		/**
+		 * @return human readable S-curve from similarity 0 to 1, with the number of keys and bytes per doc
+		 * @throws IllegalStateException see {@link #candidateProbability(double, int)}
+		 */
+		public String sCurveReport(int minSharedKeys) {
+			StringBuilder ret = new StringBuilder()
+					.append(stagesPerKey).append(" of ").append(reducedStages).append(" stages per key, ")
+					.append(stage64Bit).append(" keys (").append(stage64Bit * Long.BYTES).append(" bytes) per doc, ")
+					.append("min shared keys ").append(minSharedKeys);
+			for (int percent = 0; percent <= 100; percent += 5) {
+				ret.append(String.format("%nsimilarity %.2f: %.6f", percent / 100.0, candidateProbability(percent / 100.0, minSharedKeys)));
+			}
+			return ret.toString();
 		}
 
 	}
@@ -1,7 +1,9 @@
 package chlx.hashing.lsh;
 
 import chlx.hashing.shingles.Shingling;
+import chlx.hashing.shingles.Shingling64;
 import chlx.hashing.shingles.SimpleWordBasedShingling;
+import chlx.hashing.shingles.SimpleWordBasedShingling64;
 
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
@@ -26,7 +28,7 @@ public class LSHFactory {
 		return new LSHComputer(shingling, createLSHForIndexDeduplication());
 	}
 
-	private static LSH createLSHForIndexDeduplication() {
+	private static LSHMinHash createLSHForIndexDeduplication() {
 		return new LSHMinHash(
 				DEDUPLICATION_LSH_STAGE,
 				DEDUPLICATION_LSH_DICT_SIZE,
@@ -34,6 +36,43 @@ public class LSHFactory {
 				DEDUPLICATION_LSH_THRESHOLD);
 	}
 
+	/**
+	 * Same profile as {@link #createLSHComputerForIndexDeduplication()} but with one permutation MinHash,
+	 * signatures are not compatible with the ones of {@link #createLSHComputerForIndexDeduplication()}
+	 */
+	public static LSHComputer createOnePermutationLSHComputerForIndexDeduplication() {
+		Shingling shingling = new SimpleWordBasedShingling(DEDUPLICATION_SHINGLING_K_VAL);
+		return new LSHComputer(shingling, new LSHMinHash(
+				DEDUPLICATION_LSH_STAGE,
+				DEDUPLICATION_LSH_SEED,
+				DEDUPLICATION_LSH_THRESHOLD,
+				true));
+	}
+
+	/**
+	 * Same signatures as {@link #createLSHComputerForIndexDeduplication()} computed without shingle sets
+	 */
+	public static FusedLSHComputer createFusedLSHComputerForIndexDeduplication() {
+		Shingling shingling = new SimpleWordBasedShingling(DEDUPLICATION_SHINGLING_K_VAL);
+		return new FusedLSHComputer(shingling, createLSHForIndexDeduplication());
+	}
+
+	public static ParallelLSHComputer createParallelLSHComputerForIndexDeduplication() {
+		return new ParallelLSHComputer(() -> new SimpleWordBasedShingling(DEDUPLICATION_SHINGLING_K_VAL), createLSHForIndexDeduplication());
+	}
+
+	/**
+	 * Same profile as {@link #createLSHComputerForIndexDeduplication()} but with 64 bit shingles and MinHash,
+	 * signatures are not compatible with the ones of {@link #createLSHComputerForIndexDeduplication()}
+	 */
+	public static LSH64Computer createLSH64ComputerForIndexDeduplication() {
+		Shingling64 shingling = new SimpleWordBasedShingling64(DEDUPLICATION_SHINGLING_K_VAL);
+		return new LSH64Computer(shingling, new LSHMinHash64(
+				DEDUPLICATION_LSH_STAGE,
+				DEDUPLICATION_LSH_SEED,
+				DEDUPLICATION_LSH_THRESHOLD));
+	}
+
 	public static LSHComputer createLSHComputerForNewsTopicModel() {
 		Shingling shingling = new SimpleWordBasedShingling(DEDUPLICATION_SHINGLING_K_VAL);
 		return new LSHComputer(shingling, createLSHForNewsTopicModel());
@@ -1,7 +1,6 @@
 package chlx.hashing.lsh;
 
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.javatuples.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -9,7 +8,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
@@ -18,9 +16,11 @@ import java.util.Map;
 public class LSHGrouper extends AbstractLSHGrouper {
 
 	private static final Logger LOG = LoggerFactory.getLogger(LSHGrouper.class);
+	// Value of a bucket which has no doc yet, replaced by its own list at the first put
+	private static final DocIdPostingList NUL_LIST = new DocIdPostingList();
 
 	private final int stages;
-	private final Map<Long, List<Long>> groupBuilder;
+	private final Long2ObjectOpenHashMap<DocIdPostingList> groupBuilder;
 
 	/**
 	 * @param lsh                   - the exact lsh instance used to compute lsh signatures
@@ -31,7 +31,25 @@ public class LSHGrouper extends AbstractLSHGrouper {
 	public LSHGrouper(LSHComputer lsh, List<Long> bucketHashesToExtract) {
 		this.stages = lsh.lsh.getStages();
 		this.groupBuilder = new Long2ObjectOpenHashMap<>();
-		bucketHashesToExtract.forEach(hash -> groupBuilder.put(hash, new ArrayList<>()));
+		bucketHashesToExtract.forEach(hash -> groupBuilder.put((long) hash, NUL_LIST));
+	}
+
+	/**
+	 * @param bucketHashesToExtract - bucket hashes of each stage,
+	 *                              see {@link LSHBucketHashCounter#extractLargeBucketHashes(int, boolean)}
+	 */
+	public LSHGrouper(LSHComputer lsh, long[][] bucketHashesToExtract) {
+		this.stages = lsh.lsh.getStages();
+		int size = 0;
+		for (long[] hashes : bucketHashesToExtract) {
+			size += hashes.length;
+		}
+		this.groupBuilder = new Long2ObjectOpenHashMap<>(size);
+		for (long[] hashes : bucketHashesToExtract) {
+			for (long hash : hashes) {
+				groupBuilder.put(hash, NUL_LIST);
+			}
+		}
 	}
 
 	/**
@@ -43,18 +61,18 @@ public class LSHGrouper extends AbstractLSHGrouper {
 	}
 
 	@Override
-	protected Pair<List<IdGroup>, Object2IntOpenHashMap<IdPair>> extractBigGroupsAndPairs() {
+	protected Pair<List<IdGroup>, IdPairCountMap> extractBigGroupsAndPairs() {
 		LOG.debug("Filtering small bigGroups, grouping bigGroups and counting pairs");
 		List<IdGroup> bigGroups = new ArrayList<>();
-		Object2IntOpenHashMap<IdPair> pairCountMap = new Object2IntOpenHashMap<>();
+		IdPairCountMap pairCountMap = new IdPairCountMap();
 
 		// Converting Map<bucketHash, List<docIds> groupBuilder
 		// into a list of IdGroups, and a count map of IdPair
 		groupBuilder.forEach((hash, docIdList) -> {
 			if (docIdList.size() > 2) {
-				bigGroups.add(new AbstractLSHGrouper.IdGroup(hash, docIdList));
+				bigGroups.add(new AbstractLSHGrouper.IdGroup(hash, docIdList.toLongArray()));
 			} else if (docIdList.size() == 2) {
-				pairCountMap.addTo(new AbstractLSHGrouper.IdPair(docIdList), 1);
+				pairCountMap.addTo(docIdList.getLong(0), docIdList.getLong(1), 1);
 			}
 		});
 		return new Pair<>(bigGroups, pairCountMap);
@@ -66,10 +84,17 @@ public class LSHGrouper extends AbstractLSHGrouper {
 	private boolean putUnchecked(long docId, @NotNull int[] hash) {
 		boolean ret = false;
 		for (int stage = 0; stage < stages; ++stage) {
-			if (groupBuilder.computeIfPresent(LSHUtils.hashStageBucket(stage, hash[stage]), (bucket, docIdList) -> {
-				docIdList.add(docId);
-				return docIdList;
-			}) != null) {
+			long bucketHash = LSHUtils.hashStageBucket(stage, hash[stage]);
+			DocIdPostingList docIdList = groupBuilder.get(bucketHash);
+			if (docIdList != null) {
+				if (docIdList == NUL_LIST) {
+					docIdList = new DocIdPostingList();
+					groupBuilder.put(bucketHash, docIdList);
+				}
+				DocIdPostingList kept = appendToBucket(stage, bucketHash, docIdList, docId);
+				if (kept != docIdList) {
+					groupBuilder.put(bucketHash, kept);
+				}
 				ret = true;
 			}
 		}
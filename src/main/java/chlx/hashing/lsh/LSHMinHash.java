@@ -27,6 +27,7 @@ package chlx.hashing.lsh;
 import chlx.hashing.minhash.MinHash;
 import chlx.hashing.minhash.MinHashDictSized;
 import chlx.hashing.minhash.MinHashSimplified;
+import chlx.hashing.minhash.OnePermutationMinHash;
 
 /**
  * @author Thibault Debatty
@@ -95,6 +96,27 @@ public class LSHMinHash extends LSH {
 		}
 	}
 
+	/**
+	 * Instantiates a LSH instance that internally uses MinHash,
+	 * with stages (or bands) for sets out of a dictionary of Integer.MAX_VALUE elements.
+	 *
+	 * @param stages         stages
+	 * @param seed           random number generator seed. using the same value will
+	 *                       guarantee identical hashes across object instantiations
+	 * @param threshold      minimum similarity threshold
+	 * @param onePermutation use {@link OnePermutationMinHash} instead of {@link MinHashSimplified},
+	 *                       which hashes each shingle once instead of once per signature element
+	 */
+	public LSHMinHash(final int stages, final long seed, final double threshold, final boolean onePermutation) {
+		super(stages);
+		int signatureSize = computeSignatureSize(stages, threshold);
+		if (onePermutation) {
+			this.mh = new OnePermutationMinHash(signatureSize, seed);
+		} else {
+			this.mh = new MinHashSimplified(signatureSize, seed);
+		}
+	}
+
 	/**
 	 * Compute the size of the signature according to "Mining of Massive
 	 * Datasets" p88.
@@ -114,7 +136,7 @@ public class LSHMinHash extends LSH {
 	 * R = ln(1/s) / ln(threshold)
 	 * signature_size = R * b
 	 */
-	private int computeSignatureSize(final int stages, final double threshold) {
+	public static int computeSignatureSize(final int stages, final double threshold) {
 		if (threshold == 1.0) {
 			return 20;
 		}
@@ -132,6 +154,20 @@ public class LSHMinHash extends LSH {
 		return this.mh.signature(sortedShingles);
 	}
 
+	@Override
+	public int[] signature(final int[] shingles, final int length, final int[] sig) {
+		return this.mh.signature(shingles, length, sig);
+	}
+
+	@Override
+	public int getSignatureSize() {
+		return mh.getSignatureSize();
+	}
+
+	MinHash getMinHash() {
+		return mh;
+	}
+
 	/**
 	 * Get the coefficients used by internal hashing functions.
 	 *
@@ -0,0 +1,98 @@
+package chlx.hashing.lsh;
+
+import chlx.hashing.minhash.MinHash64;
+import chlx.hashing.minhash.MinHashSimplified64;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * 64 bit version of {@link LSHMinHash} for long shingles,
+ * stage hashes stay 32 bit so that they fit the existing groupers and {@link LSHComputer.Signature64Converter}
+ */
+public class LSHMinHash64 extends LSH {
+
+	private final MinHash64 mh;
+
+	/**
+	 * @param stages    stages
+	 * @param seed      random number generator seed. using the same value will
+	 *                  guarantee identical hashes across object instantiations
+	 * @param threshold minimum similarity threshold
+	 */
+	public LSHMinHash64(final int stages, final long seed, final double threshold) {
+		this(stages, new MinHashSimplified64(LSHMinHash.computeSignatureSize(stages, threshold), seed));
+	}
+
+	public LSHMinHash64(final int stages, final MinHash64 mh) {
+		super(stages);
+		this.mh = mh;
+	}
+
+	/**
+	 * Int shingles are widened to long
+	 */
+	@Override
+	public int[] hashShingles(final int[] sortedShingles) {
+		long[] shingles = new long[sortedShingles.length];
+		for (int i = 0; i < shingles.length; i++) {
+			shingles[i] = sortedShingles[i];
+		}
+		return hashShingles64(shingles);
+	}
+
+	/**
+	 * Int shingles are widened to long, each 64 bit min hash is folded into 32 bits the same way as
+	 * {@link LSH#hashSignature(long[], int, int[])}, so stage hashes equal those of {@link #hashShingles(int[])}
+	 */
+	@Override
+	public int[] signature(final int[] sortedShingles) {
+		return signature(sortedShingles, sortedShingles.length, new int[getSignatureSize()]);
+	}
+
+	/**
+	 * Same as {@link #signature(int[])} into sig, the widened shingles and the 64 bit signature are temporary arrays
+	 */
+	@Override
+	public int[] signature(final int[] shingles, final int length, final int[] sig) {
+		long[] longShingles = new long[length];
+		for (int i = 0; i < length; i++) {
+			longShingles[i] = shingles[i];
+		}
+		long[] sig64 = mh.signature(longShingles, length, new long[getSignatureSize()]);
+		for (int i = 0; i < sig64.length; i++) {
+			sig[i] = (int) (sig64[i] ^ (sig64[i] >>> 32));
+		}
+		return sig;
+	}
+
+	public long[] signature64(final long[] shingles) {
+		return mh.signature(shingles);
+	}
+
+	public long[] signature64(final long[] shingles, final int length, final long[] sig) {
+		return mh.signature(shingles, length, sig);
+	}
+
+	public int[] hashShingles64(final long[] shingles) {
+		long[] sig = mh.signature(shingles);
+		return hashSignature(sig, sig.length, new int[getStages()]);
+	}
+
+	/**
+	 * Hash the first length shingles without allocating
+	 *
+	 * @param sig  min hash signature buffer, its length must be at least {@link #getSignatureSize()}
+	 * @param hash output array, its length must be at least stages
+	 * @return hash
+	 */
+	public int[] hashShingles64(final long[] shingles, final int length, final long[] sig, final int[] hash) {
+		return hashSignature(mh.signature(shingles, length, sig), getSignatureSize(), hash);
+	}
+
+	@Override
+	public int getSignatureSize() {
+		return mh.getSignatureSize();
+	}
+
+}
@@ -0,0 +1,341 @@
+package chlx.hashing.lsh;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Append-only file of lsh signatures, so that the second pass of the two-pass deduplication
+ * (e.g. {@link LSHBucketHashCounter} then {@link LSHGrouper}) scans signatures at disk bandwidth
+ * instead of shingling and hashing the corpus again.
+ * <p>
+ * Format (big endian):
+ * - header of 16 bytes: magic, element size in bytes (4 for int[stages], 8 for long[stage64Bit]), width, 0
+ * - fixed-width records: doc id (8 bytes), then width elements
+ * <p>
+ * A partial record left at the end by a crash is ignored by {@link Reader} and truncated by {@link Writer},
+ * a partial header (a crash while creating the file) is written again by {@link Writer}.
+ */
+public final class LSHSignatureFile {
+
+	private static final int MAGIC = 0x4C534831;
+	private static final int HEADER_SIZE = 16;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private LSHSignatureFile() {
+	}
+
+	/**
+	 * Open or create a file of int[stages] signatures, see {@link LSHComputer#signature(String)}
+	 */
+	@NotNull
+	public static Writer openIntWriter(@NotNull Path path, int stages) throws IOException {
+		return new Writer(path, Integer.BYTES, stages);
+	}
+
+	/**
+	 * Open or create a file of long[stage64Bit] signatures, see {@link LSHComputer.Signature64Converter}
+	 */
+	@NotNull
+	public static Writer openLongWriter(@NotNull Path path, int stage64Bit) throws IOException {
+		return new Writer(path, Long.BYTES, stage64Bit);
+	}
+
+	@NotNull
+	public static Reader openReader(@NotNull Path path) throws IOException {
+		return new Reader(path);
+	}
+
+	private static int recordSize(int elementBytes, int width) {
+		return Long.BYTES + elementBytes * width;
+	}
+
+	/**
+	 * @return [elementBytes, width]
+	 */
+	private static int[] readHeader(FileChannel channel, Path path) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IOException("Truncated header of " + path);
+			}
+		}
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IOException(path + " is not a signature file");
+		}
+		int elementBytes = header.getInt();
+		int width = header.getInt();
+		if ((elementBytes != Integer.BYTES && elementBytes != Long.BYTES) || width <= 0) {
+			throw new IOException("Corrupted header of " + path);
+		}
+		return new int[]{elementBytes, width};
+	}
+
+	/**
+	 * Appends records, not thread safe
+	 */
+	public static class Writer implements Closeable {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private final int elementBytes;
+		private final int width;
+		private final int recordSize;
+
+		private Writer(Path path, int elementBytes, int width) throws IOException {
+			if (width <= 0) {
+				throw new IllegalArgumentException("width must be greater than 0");
+			}
+			this.elementBytes = elementBytes;
+			this.width = width;
+			this.recordSize = recordSize(elementBytes, width);
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				if (channel.size() < HEADER_SIZE) {
+					// New file, or no record could have been written after a partial header
+					channel.truncate(0);
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					header.putInt(MAGIC).putInt(elementBytes).putInt(width).putInt(0).flip();
+					while (header.hasRemaining()) {
+						channel.write(header, header.position());
+					}
+				} else {
+					int[] header = readHeader(channel, path);
+					if (header[0] != elementBytes || header[1] != width) {
+						throw new IOException(path + " holds signatures of another type or width");
+					}
+					long records = (channel.size() - HEADER_SIZE) / recordSize;
+					channel.truncate(HEADER_SIZE + records * recordSize);
+				}
+				channel.position(channel.size());
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			this.buffer = ByteBuffer.allocate(Math.max(WRITE_BUFFER_SIZE / recordSize, 1) * recordSize);
+		}
+
+		/**
+		 * @return false if lshSignature is null (e.g. a too short doc)
+		 */
+		public boolean append(long docId, @Nullable int[] lshSignature) throws IOException {
+			if (lshSignature == null) {
+				return false;
+			}
+			if (elementBytes != Integer.BYTES || lshSignature.length < width) {
+				throw new IllegalArgumentException("Signature must be an int[" + width + "]");
+			}
+			ensureRecordSpace();
+			buffer.putLong(docId);
+			for (int i = 0; i < width; i++) {
+				buffer.putInt(lshSignature[i]);
+			}
+			return true;
+		}
+
+		/**
+		 * @return false if lsh64BitSignature is null
+		 */
+		public boolean append(long docId, @Nullable long[] lsh64BitSignature) throws IOException {
+			if (lsh64BitSignature == null) {
+				return false;
+			}
+			if (elementBytes != Long.BYTES || lsh64BitSignature.length < width) {
+				throw new IllegalArgumentException("Signature must be a long[" + width + "]");
+			}
+			ensureRecordSpace();
+			buffer.putLong(docId);
+			for (int i = 0; i < width; i++) {
+				buffer.putLong(lsh64BitSignature[i]);
+			}
+			return true;
+		}
+
+		private void ensureRecordSpace() throws IOException {
+			if (buffer.remaining() < recordSize) {
+				flush();
+			}
+		}
+
+		public void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				channel.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Memory-mapped read only view of the records written before it was opened,
+	 * records are accessed by index from 0 to size() - 1.
+	 * Only absolute reads are used, so a reader can be shared between threads.
+	 */
+	public static class Reader implements Closeable {
+
+		private final FileChannel channel;
+		private final int elementBytes;
+		private final int width;
+		private final int recordSize;
+		private final long size;
+		private final int recordsPerChunk;
+		// Each chunk maps recordsPerChunk whole records, since a mapping is limited to 2GB
+		private final MappedByteBuffer[] chunks;
+
+		private Reader(Path path) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.READ);
+			try {
+				int[] header = readHeader(channel, path);
+				this.elementBytes = header[0];
+				this.width = header[1];
+				this.recordSize = recordSize(elementBytes, width);
+				this.size = (channel.size() - HEADER_SIZE) / recordSize;
+				this.recordsPerChunk = Integer.MAX_VALUE / recordSize;
+				int chunkNum = (int) ((size + recordsPerChunk - 1) / recordsPerChunk);
+				this.chunks = new MappedByteBuffer[chunkNum];
+				for (int i = 0; i < chunkNum; i++) {
+					long first = (long) i * recordsPerChunk;
+					long records = Math.min(recordsPerChunk, size - first);
+					chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * recordSize, records * recordSize);
+				}
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * @return number of records
+		 */
+		public long size() {
+			return size;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public boolean isLongSignature() {
+			return elementBytes == Long.BYTES;
+		}
+
+		public long getDocId(long index) {
+			return chunk(index).getLong(offset(index));
+		}
+
+		/**
+		 * @param ret output array, its length must be at least width
+		 * @return ret
+		 */
+		public int[] getSignature(long index, @NotNull int[] ret) {
+			if (elementBytes != Integer.BYTES) {
+				throw new IllegalStateException("File holds long signatures");
+			}
+			return readInts(index, ret);
+		}
+
+		private int[] readInts(long index, int[] ret) {
+			MappedByteBuffer chunk = chunk(index);
+			int offset = offset(index) + Long.BYTES;
+			for (int i = 0; i < width; i++, offset += Integer.BYTES) {
+				ret[i] = chunk.getInt(offset);
+			}
+			return ret;
+		}
+
+		/**
+		 * @param ret output array, its length must be at least width
+		 * @return ret
+		 */
+		public long[] getSignature(long index, @NotNull long[] ret) {
+			if (elementBytes != Long.BYTES) {
+				throw new IllegalStateException("File holds int signatures");
+			}
+			return readLongs(index, ret);
+		}
+
+		private long[] readLongs(long index, long[] ret) {
+			MappedByteBuffer chunk = chunk(index);
+			int offset = offset(index) + Long.BYTES;
+			for (int i = 0; i < width; i++, offset += Long.BYTES) {
+				ret[i] = chunk.getLong(offset);
+			}
+			return ret;
+		}
+
+		/**
+		 * Sequential scan of int signatures, the signature array is reused between records
+		 */
+		public void forEachInt(@NotNull IntSignatureConsumer consumer) {
+			if (elementBytes != Integer.BYTES) {
+				throw new IllegalStateException("File holds long signatures");
+			}
+			int[] signature = new int[width];
+			for (long index = 0; index < size; index++) {
+				consumer.accept(getDocId(index), readInts(index, signature));
+			}
+		}
+
+		/**
+		 * Sequential scan of long signatures, the signature array is reused between records
+		 */
+		public void forEachLong(@NotNull LongSignatureConsumer consumer) {
+			if (elementBytes != Long.BYTES) {
+				throw new IllegalStateException("File holds int signatures");
+			}
+			long[] signature = new long[width];
+			for (long index = 0; index < size; index++) {
+				consumer.accept(getDocId(index), readLongs(index, signature));
+			}
+		}
+
+		private MappedByteBuffer chunk(long index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+			}
+			return chunks[(int) (index / recordsPerChunk)];
+		}
+
+		private int offset(long index) {
+			return (int) (index % recordsPerChunk) * recordSize;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+
+	}
+
+	@FunctionalInterface
+	public interface IntSignatureConsumer {
+		void accept(long docId, int[] lshSignature);
+	}
+
+	@FunctionalInterface
+	public interface LongSignatureConsumer {
+		void accept(long docId, long[] lsh64BitSignature);
+	}
+
+}
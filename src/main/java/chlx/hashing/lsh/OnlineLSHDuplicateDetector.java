@@ -0,0 +1,163 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Single pass alternative of {@link LSHBucketHashCounter} + {@link LSHGrouper}: keeps a banded index of
+ * every seen document and answers, for each incoming lsh signature, which prior documents share
+ * at least minMatchingStages of its buckets, so that deduplication runs inline with ingestion.
+ * <p>
+ * Each stage is a primitive table: bucket -> last posting, and postings of a bucket are chained by
+ * an array of previous postings. A doc has one posting per stage at the same index, so doc ids are stored once
+ * for all stages, and there is no object per bucket nor per doc.
+ * Scans of hot buckets stop after maxScanPerBucket postings (the most recent ones).
+ * <p>
+ * Doc ids must be unique: there is no set of indexed ids, so a doc put twice gets two postings per stage
+ * and its shared stages are counted twice by queries.
+ * <p>
+ * Not thread safe.
+ */
+public class OnlineLSHDuplicateDetector {
+
+	public static final int DEFAULT_MAX_SCAN_PER_BUCKET = 1000;
+
+	private static final int NO_POSTING = -1;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final long[] NO_CANDIDATE = new long[0];
+
+	private final int stages;
+	private final int minMatchingStages;
+	private final int maxScanPerBucket;
+	// [stage] bucket -> last posting
+	private final Int2IntOpenHashMap[] lastPostings;
+	// [posting]
+	private long[] docIds;
+	// [stage][posting] -> previous posting of the same bucket
+	private final int[][] previousPostings;
+	private int docCount = 0;
+
+	// Scratch of a query: candidate -> number of shared stages
+	private final Long2IntOpenHashMap matchCounts = new Long2IntOpenHashMap();
+	private final LongArrayList candidates = new LongArrayList();
+
+	public OnlineLSHDuplicateDetector(LSHComputer lsh) {
+		this(lsh.lsh.getStages(), 1, DEFAULT_MAX_SCAN_PER_BUCKET);
+	}
+
+	/**
+	 * @param minMatchingStages number of buckets a prior doc must share to be a candidate
+	 * @param maxScanPerBucket  max number of postings read per bucket for a query
+	 */
+	public OnlineLSHDuplicateDetector(int stages, int minMatchingStages, int maxScanPerBucket) {
+		if (stages <= 0) {
+			throw new IllegalArgumentException("stages must be greater than 0");
+		}
+		if (minMatchingStages <= 0 || minMatchingStages > stages) {
+			throw new IllegalArgumentException("minMatchingStages must be between 1 and stages");
+		}
+		if (maxScanPerBucket <= 0) {
+			throw new IllegalArgumentException("maxScanPerBucket must be greater than 0");
+		}
+		this.stages = stages;
+		this.minMatchingStages = minMatchingStages;
+		this.maxScanPerBucket = maxScanPerBucket;
+		this.lastPostings = new Int2IntOpenHashMap[stages];
+		this.docIds = new long[INITIAL_CAPACITY];
+		this.previousPostings = new int[stages][INITIAL_CAPACITY];
+		for (int stage = 0; stage < stages; stage++) {
+			lastPostings[stage] = new Int2IntOpenHashMap();
+			lastPostings[stage].defaultReturnValue(NO_POSTING);
+		}
+	}
+
+	/**
+	 * Find candidates of docId among prior docs, then index it, docId must not have been put before
+	 *
+	 * @return ids of prior docs sharing at least minMatchingStages buckets, in no particular order
+	 */
+	@NotNull
+	public long[] putAndGetCandidates(long docId, @Nullable int[] lshSignature) {
+		if (!isValid(lshSignature)) {
+			return NO_CANDIDATE;
+		}
+		long[] ret = getCandidates(true, docId, lshSignature);
+		putUnchecked(docId, lshSignature);
+		return ret;
+	}
+
+	/**
+	 * @return ids of indexed docs sharing at least minMatchingStages buckets, the index is not modified
+	 */
+	@NotNull
+	public long[] getCandidates(@Nullable int[] lshSignature) {
+		return isValid(lshSignature) ? getCandidates(false, 0, lshSignature) : NO_CANDIDATE;
+	}
+
+	/**
+	 * Index docId without looking for its candidates, docId must not have been put before
+	 */
+	public boolean put(long docId, @Nullable int[] lshSignature) {
+		if (!isValid(lshSignature)) {
+			return false;
+		}
+		putUnchecked(docId, lshSignature);
+		return true;
+	}
+
+	private boolean isValid(@Nullable int[] lshSignature) {
+		return lshSignature != null && lshSignature.length >= stages;
+	}
+
+	/**
+	 * @param exclude whether excludedDocId is left out of candidates
+	 */
+	private long[] getCandidates(boolean exclude, long excludedDocId, @NotNull int[] lshSignature) {
+		candidates.clear();
+		matchCounts.clear();
+		for (int stage = 0; stage < stages; stage++) {
+			int[] previous = previousPostings[stage];
+			int posting = lastPostings[stage].get(lshSignature[stage]);
+			for (int scanned = 0; posting != NO_POSTING && scanned < maxScanPerBucket; scanned++) {
+				long candidate = docIds[posting];
+				if (!(exclude && candidate == excludedDocId) && matchCounts.addTo(candidate, 1) + 1 == minMatchingStages) {
+					candidates.add(candidate);
+				}
+				posting = previous[posting];
+			}
+		}
+		return candidates.isEmpty() ? NO_CANDIDATE : candidates.toLongArray();
+	}
+
+	private void putUnchecked(long docId, @NotNull int[] lshSignature) {
+		if (docCount == docIds.length) {
+			int capacity = docCount * 2;
+			docIds = Arrays.copyOf(docIds, capacity);
+			for (int stage = 0; stage < stages; stage++) {
+				previousPostings[stage] = Arrays.copyOf(previousPostings[stage], capacity);
+			}
+		}
+		int posting = docCount++;
+		docIds[posting] = docId;
+		for (int stage = 0; stage < stages; stage++) {
+			previousPostings[stage][posting] = lastPostings[stage].put(lshSignature[stage], posting);
+		}
+	}
+
+	public int getDocCount() {
+		return docCount;
+	}
+
+	public int getStages() {
+		return stages;
+	}
+
+}
@@ -0,0 +1,208 @@
+package chlx.hashing.lsh;
+
+import chlx.hashing.shingles.Shingling;
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Computes lsh signatures of document batches with fork-join parallelism.
+ * <p>
+ * {@link LSHComputer} cannot be shared between threads because of the shingler state,
+ * so every running task borrows its own shingler (from shinglingSupplier) and {@link LSHComputer.Scratch}
+ * from a queue of idle workers, while the {@link LSH} instance, which is read only after construction, is shared.
+ * Workers belong to this instance, not to pool threads, so nothing is left behind in shared pools
+ * once the instance is dropped.
+ */
+@ThreadSafe
+public class ParallelLSHComputer {
+
+	private static final int DEFAULT_BATCH_SIZE = 256;
+
+	private final Supplier<Shingling> shinglingSupplier;
+	private final LSH lsh;
+	private final LSHComputer prototype;
+	// At most one worker per task running at the same time
+	private final Queue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+	private final ForkJoinPool pool;
+	private final int batchSize;
+
+	public ParallelLSHComputer(Supplier<Shingling> shinglingSupplier, LSH lsh) {
+		this(shinglingSupplier, lsh, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param shinglingSupplier must return a new shingler on each call
+	 * @param pool              pool which runs batch tasks
+	 * @param batchSize         number of documents under which a task is not split anymore
+	 */
+	public ParallelLSHComputer(Supplier<Shingling> shinglingSupplier, LSH lsh, ForkJoinPool pool, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be greater than 0");
+		}
+		this.shinglingSupplier = shinglingSupplier;
+		this.lsh = lsh;
+		this.prototype = new LSHComputer(shinglingSupplier.get(), lsh);
+		this.pool = pool;
+		this.batchSize = batchSize;
+	}
+
+	public int getStages() {
+		return prototype.getStages();
+	}
+
+	public LSHComputer.Signature64Converter createSig64Converter() {
+		return prototype.createSig64Converter();
+	}
+
+	public LSHComputer.Signature64Converter createReducedSig64Converter(int reducedStages, int dupElementMinAppearance) {
+		return prototype.createReducedSig64Converter(reducedStages, dupElementMinAppearance);
+	}
+
+	/**
+	 * @return lsh signatures in the same order as docs, null for docs which are too short
+	 * (see {@link LSHComputer#signature(String)})
+	 */
+	@NotNull
+	public int[][] signatures(@NotNull String[] docs) {
+		int[][] ret = new int[docs.length][];
+		pool.invoke(new SignatureTask(docs, 0, docs.length, ret, null, null));
+		return ret;
+	}
+
+	/**
+	 * @return 64 bit signatures in the same order as docs, null for docs which are too short
+	 */
+	@NotNull
+	public long[][] signatures64(@NotNull String[] docs, @NotNull LSHComputer.Signature64Converter converter) {
+		long[][] ret = new long[docs.length][];
+		pool.invoke(new SignatureTask(docs, 0, docs.length, null, ret, converter));
+		return ret;
+	}
+
+	/**
+	 * @return lsh signatures in encounter order of docs, null for docs which are too short
+	 * @implNote the stream is made parallel and runs in the pool of the terminal operation's caller
+	 * (the common pool unless it is called from a task of another pool)
+	 */
+	@NotNull
+	public Stream<int[]> signatures(@NotNull Stream<String> docs) {
+		return docs.parallel().map(this::signature);
+	}
+
+	/**
+	 * @return 64 bit signatures in encounter order of docs, null for docs which are too short
+	 */
+	@NotNull
+	public Stream<long[]> signatures64(@NotNull Stream<String> docs, @NotNull LSHComputer.Signature64Converter converter) {
+		return docs.parallel().map(doc -> signature64(doc, converter));
+	}
+
+	/**
+	 * Single document signature with a borrowed shingler and scratch
+	 */
+	@Nullable
+	public int[] signature(@NotNull String doc) {
+		Worker worker = borrowWorker();
+		try {
+			return worker.signature(doc);
+		} finally {
+			idleWorkers.add(worker);
+		}
+	}
+
+	@Nullable
+	public long[] signature64(@NotNull String doc, @NotNull LSHComputer.Signature64Converter converter) {
+		Worker worker = borrowWorker();
+		try {
+			return worker.signature64(doc, converter);
+		} finally {
+			idleWorkers.add(worker);
+		}
+	}
+
+	private Worker borrowWorker() {
+		Worker worker = idleWorkers.poll();
+		return worker != null ? worker : new Worker(new LSHComputer(shinglingSupplier.get(), lsh));
+	}
+
+	private static class Worker {
+
+		final LSHComputer computer;
+		final LSHComputer.Scratch scratch;
+
+		Worker(LSHComputer computer) {
+			this.computer = computer;
+			this.scratch = computer.createScratch();
+		}
+
+		@Nullable
+		int[] signature(@NotNull String doc) {
+			int[] sig = computer.signature(doc, scratch);
+			return sig == null ? null : sig.clone();
+		}
+
+		@Nullable
+		long[] signature64(@NotNull String doc, @NotNull LSHComputer.Signature64Converter converter) {
+			long[] sig = computer.signature64(doc, converter, scratch);
+			return sig == null ? null : sig.clone();
+		}
+
+	}
+
+	private class SignatureTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] docs;
+		private final int from;
+		private final int to;
+		private final int[][] ret;
+		private final long[][] ret64;
+		private final LSHComputer.Signature64Converter converter;
+
+		SignatureTask(String[] docs, int from, int to, int[][] ret, long[][] ret64, LSHComputer.Signature64Converter converter) {
+			this.docs = docs;
+			this.from = from;
+			this.to = to;
+			this.ret = ret;
+			this.ret64 = ret64;
+			this.converter = converter;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= batchSize) {
+				// One worker for the whole batch
+				Worker worker = borrowWorker();
+				try {
+					for (int i = from; i < to; i++) {
+						if (ret != null) {
+							ret[i] = worker.signature(docs[i]);
+						} else {
+							ret64[i] = worker.signature64(docs[i], converter);
+						}
+					}
+				} finally {
+					idleWorkers.add(worker);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new SignatureTask(docs, from, mid, ret, ret64, converter),
+					new SignatureTask(docs, mid, to, ret, ret64, converter));
+		}
+
+	}
+
+}
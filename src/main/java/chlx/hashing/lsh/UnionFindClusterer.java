@@ -0,0 +1,248 @@
+package chlx.hashing.lsh;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Clusters doc ids from streamed candidate edges with a primitive union-find
+ * (path halving, union by size).
+ * <p>
+ * Two docs are linked once they have been given as candidates minPairCount times
+ * (e.g. they shared that many LSH buckets), then clusters are the connected components of those links.
+ * Doc ids are mapped to int indexes, so a pair is counted under a single packed long key.
+ * <p>
+ * A group of g docs (e.g. an LSH bucket) costs O(g) when minPairCount is 1, as a star of edges links the same docs.
+ * Otherwise its g(g-1)/2 pairs are counted only up to maxPairedGroupSize docs, a larger group only counts
+ * the g-1 pairs of consecutive sorted doc ids: a boilerplate bucket then can't blow up the pair counts,
+ * but its docs are linked only through neighbours which shared enough buckets.
+ * <p>
+ * Not thread safe.
+ */
+public class UnionFindClusterer {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int NO_INDEX = -1;
+	public static final int DEFAULT_MAX_PAIRED_GROUP_SIZE = 256;
+
+	private final int minPairCount;
+	private final int maxPairedGroupSize;
+	private final Long2IntOpenHashMap docIndexes;
+	private final Long2IntOpenHashMap pairCounts;
+
+	private long[] docIds;
+	private int[] parents;
+	private int[] sizes;
+	private int docCount = 0;
+
+	/**
+	 * @param minPairCount number of times two docs must be given as candidates to be linked
+	 */
+	public UnionFindClusterer(int minPairCount) {
+		this(minPairCount, DEFAULT_MAX_PAIRED_GROUP_SIZE);
+	}
+
+	/**
+	 * @param minPairCount       number of times two docs must be given as candidates to be linked
+	 * @param maxPairedGroupSize max size of a group whose every pair is counted, at least 2
+	 */
+	public UnionFindClusterer(int minPairCount, int maxPairedGroupSize) {
+		if (minPairCount <= 0) {
+			throw new IllegalArgumentException("minPairCount must be greater than 0");
+		}
+		if (maxPairedGroupSize < 2) {
+			throw new IllegalArgumentException("maxPairedGroupSize can't be smaller than 2");
+		}
+		this.minPairCount = minPairCount;
+		this.maxPairedGroupSize = maxPairedGroupSize;
+		this.docIndexes = new Long2IntOpenHashMap();
+		this.docIndexes.defaultReturnValue(NO_INDEX);
+		this.pairCounts = new Long2IntOpenHashMap();
+		this.docIds = new long[INITIAL_CAPACITY];
+		this.parents = new int[INITIAL_CAPACITY];
+		this.sizes = new int[INITIAL_CAPACITY];
+	}
+
+	public void addCandidatePair(long docId1, long docId2) {
+		addCandidatePair(docId1, docId2, 1);
+	}
+
+	/**
+	 * Count docId1 and docId2 as candidates count more times
+	 */
+	public void addCandidatePair(long docId1, long docId2, int count) {
+		if (docId1 == docId2) {
+			return;
+		}
+		addCandidateIndexes(indexOf(docId1), indexOf(docId2), count);
+	}
+
+	/**
+	 * Count every pair of a bucket as candidates once, or only pairs of consecutive sorted doc ids
+	 * when the bucket has more than maxPairedGroupSize docs
+	 */
+	public void addCandidateGroup(@NotNull long[] docIds) {
+		addCandidateGroup(docIds, docIds.length);
+	}
+
+	public void addCandidateGroup(@NotNull long[] docIds, int length) {
+		if (length < 2) {
+			return;
+		}
+		if (minPairCount == 1) {
+			// Each pair is linked at once, a star links the same docs with length - 1 unions
+			int first = indexOf(docIds[0]);
+			for (int i = 1; i < length; i++) {
+				union(first, indexOf(docIds[i]));
+			}
+		} else if (length <= maxPairedGroupSize) {
+			int[] indexes = new int[length];
+			for (int i = 0; i < length; i++) {
+				indexes[i] = indexOf(docIds[i]);
+			}
+			for (int i = 0; i < length - 1; i++) {
+				for (int j = i + 1; j < length; j++) {
+					if (indexes[i] != indexes[j]) {
+						addCandidateIndexes(indexes[i], indexes[j], 1);
+					}
+				}
+			}
+		} else {
+			long[] sorted = Arrays.copyOf(docIds, length);
+			Arrays.sort(sorted);
+			int previous = indexOf(sorted[0]);
+			for (int i = 1; i < length; i++) {
+				if (sorted[i] != sorted[i - 1]) {
+					int index = indexOf(sorted[i]);
+					addCandidateIndexes(previous, index, 1);
+					previous = index;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Link docId1 and docId2 regardless of minPairCount
+	 */
+	public void union(long docId1, long docId2) {
+		union(indexOf(docId1), indexOf(docId2));
+	}
+
+	public boolean connected(long docId1, long docId2) {
+		int index1 = docIndexes.get(docId1);
+		int index2 = docIndexes.get(docId2);
+		return index1 != NO_INDEX && index2 != NO_INDEX && find(index1) == find(index2);
+	}
+
+	private void addCandidateIndexes(int index1, int index2, int count) {
+		int root1 = find(index1);
+		int root2 = find(index2);
+		if (root1 == root2) {
+			// Already in the same cluster, no need to count anymore
+			return;
+		}
+		if (count >= minPairCount) {
+			link(root1, root2);
+			return;
+		}
+		long key = pairKey(index1, index2);
+		int before = pairCounts.addTo(key, count);
+		if (before + count >= minPairCount) {
+			pairCounts.remove(key);
+			link(root1, root2);
+		}
+	}
+
+	private static long pairKey(int index1, int index2) {
+		return index1 < index2 ?
+				(((long) index1) << 32) | index2 :
+				(((long) index2) << 32) | index1;
+	}
+
+	private int indexOf(long docId) {
+		int index = docIndexes.get(docId);
+		if (index != NO_INDEX) {
+			return index;
+		}
+		if (docCount == docIds.length) {
+			int capacity = docIds.length * 2;
+			docIds = Arrays.copyOf(docIds, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+		index = docCount++;
+		docIds[index] = docId;
+		parents[index] = index;
+		sizes[index] = 1;
+		docIndexes.put(docId, index);
+		return index;
+	}
+
+	private int find(int index) {
+		while (parents[index] != index) {
+			parents[index] = parents[parents[index]];
+			index = parents[index];
+		}
+		return index;
+	}
+
+	private void union(int index1, int index2) {
+		int root1 = find(index1);
+		int root2 = find(index2);
+		if (root1 != root2) {
+			link(root1, root2);
+		}
+	}
+
+	private void link(int root1, int root2) {
+		if (sizes[root1] < sizes[root2]) {
+			int tmp = root1;
+			root1 = root2;
+			root2 = tmp;
+		}
+		parents[root2] = root1;
+		sizes[root1] += sizes[root2];
+	}
+
+	public int getDocCount() {
+		return docCount;
+	}
+
+	/**
+	 * @return sorted doc ids of every cluster having at least 2 docs
+	 */
+	@NotNull
+	public List<long[]> extractGroups() {
+		// Bucket docs by root with a counting sort over indexes
+		int[] roots = new int[docCount];
+		int[] groupIndexes = new int[docCount];
+		Arrays.fill(groupIndexes, NO_INDEX);
+		List<long[]> ret = new ArrayList<>();
+		int[] filled = new int[docCount];
+		for (int i = 0; i < docCount; i++) {
+			int root = find(i);
+			roots[i] = root;
+			if (sizes[root] > 1 && groupIndexes[root] == NO_INDEX) {
+				groupIndexes[root] = ret.size();
+				ret.add(new long[sizes[root]]);
+			}
+		}
+		for (int i = 0; i < docCount; i++) {
+			int groupIndex = groupIndexes[roots[i]];
+			if (groupIndex != NO_INDEX) {
+				ret.get(groupIndex)[filled[groupIndex]++] = docIds[i];
+			}
+		}
+		for (long[] group : ret) {
+			Arrays.sort(group);
+		}
+		return ret;
+	}
+
+}
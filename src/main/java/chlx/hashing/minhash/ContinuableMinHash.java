@@ -1,12 +1,13 @@
 package chlx.hashing.minhash;
 
 import java.util.Arrays;
+import java.util.function.IntConsumer;
 
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
  * Creation date: 2019-01-15
  */
-public class ContinuableMinHash {
+public class ContinuableMinHash implements IntConsumer {
 
 	private final MinHashSimplified minHashSimplified;
 	private final int signatureSize;
@@ -16,21 +17,39 @@ public class ContinuableMinHash {
 		this.minHashSimplified = minHashSimplified;
 		this.signatureSize = minHashSimplified.getSignatureSize();
 		sig = new int[signatureSize];
-		for (int i = 0; i < signatureSize; i++) {
-			sig[i] = Integer.MAX_VALUE;
-		}
+		reset();
 	}
 
 	public void add(int r) {
-		for (int i = 0; i < signatureSize; i++) {
-			sig[i] = Math.min(
-					sig[i],
-					minHashSimplified.h(i, r));
-		}
+		minHashSimplified.update(sig, r);
+	}
+
+	/**
+	 * Same as {@link #add(int)}, so that shinglers can push their shingles directly
+	 */
+	@Override
+	public void accept(int r) {
+		add(r);
+	}
+
+	/**
+	 * Start a new empty set
+	 */
+	public void reset() {
+		Arrays.fill(sig, Integer.MAX_VALUE);
 	}
 
 	public int[] getSignature() {
 		return Arrays.copyOf(sig, sig.length);
 	}
 
+	/**
+	 * @param ret output array, its length must be at least the signature size
+	 * @return ret
+	 */
+	public int[] getSignature(int[] ret) {
+		System.arraycopy(sig, 0, ret, 0, signatureSize);
+		return ret;
+	}
+
 }
@@ -8,6 +8,14 @@ public interface MinHash {
 
 	int[] signature(int[] sortedShingles);
 
+	/**
+	 * Computes the signature of the first length shingles into sig without allocating
+	 *
+	 * @param sig output array, its length must be at least {@link #getSignatureSize()}
+	 * @return sig
+	 */
+	int[] signature(int[] shingles, int length, int[] sig);
+
 	long[][] getCoefficients();
 
 	int[] signature(boolean[] vector);
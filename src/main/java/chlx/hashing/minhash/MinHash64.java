@@ -8,6 +8,14 @@ public interface MinHash64 {
 
 	long[] signature(long[] sortedShingles);
 
+	/**
+	 * Computes the signature of the first length shingles into sig without allocating
+	 *
+	 * @param sig output array, its length must be at least {@link #getSignatureSize()}
+	 * @return sig
+	 */
+	long[] signature(long[] shingles, int length, long[] sig);
+
 	long[][] getCoefficients();
 
 	long[] signature(boolean[] vector);
@@ -227,14 +227,17 @@ public class MinHashDictSized implements MinHash {
 	 */
 	@Override
 	public final int[] signature(final int[] ints) {
-		int[] sig = new int[n];
+		return signature(ints, ints.length, new int[n]);
+	}
 
+	@Override
+	public final int[] signature(final int[] ints, final int length, final int[] sig) {
 		for (int i = 0; i < n; i++) {
 			sig[i] = Integer.MAX_VALUE;
 		}
 
-
-		for (final int r : ints) {
+		for (int index = 0; index < length; index++) {
+			final int r = ints[index];
 			// However, if c has 1 in row r, then for each i = 1, 2, . . . ,n
 			// set SIG(i, c) to the smaller of the current value of
 			// SIG(i, c) and hi(r)
@@ -17,9 +17,13 @@ public class MinHashSimplified implements MinHash {
 	 */
 	private int signatureSize;
 	/**
-	 * Random a and b coefficients for the random hash functions.
+	 * Random a coefficients for the random hash functions.
 	 */
-	private int[][] hash_coefs;
+	private int[] coefA;
+	/**
+	 * Random b coefficients for the random hash functions.
+	 */
+	private int[] coefB;
 
 
 	/**
@@ -54,25 +58,37 @@ public class MinHashSimplified implements MinHash {
 	 */
 	@Override
 	public final int[] signature(final int[] sortedInt) {
-		int[] sig = new int[signatureSize];
+		return signature(sortedInt, sortedInt.length, new int[signatureSize]);
+	}
 
+	@Override
+	public final int[] signature(final int[] shingles, final int length, final int[] sig) {
 		for (int i = 0; i < signatureSize; i++) {
 			sig[i] = Integer.MAX_VALUE;
 		}
 
-		for (final int r : sortedInt) {
-			// However, if c has 1 in row r, then for each i = 1, 2, . . . ,signatureSize
-			// set SIG(i, c) to the smaller of the current value of
-			// SIG(i, c) and hi(r)
-			for (int i = 0; i < signatureSize; i++) {
-				sig[i] = Math.min(
-						sig[i],
-						h(i, r));
-			}
+		for (int index = 0; index < length; index++) {
+			update(sig, shingles[index]);
 		}
 		return sig;
 	}
 
+	/**
+	 * If c has 1 in row r, then for each i = 1, 2, . . . ,signatureSize
+	 * set SIG(i, c) to the smaller of the current value of SIG(i, c) and hi(r)
+	 *
+	 * @implNote Branch free over flat arrays so that the JIT can turn it into SIMD min/abs instructions
+	 */
+	final void update(final int[] sig, final int r) {
+		final int[] a = coefA;
+		final int[] b = coefB;
+		for (int i = 0; i < signatureSize; i++) {
+			sig[i] = Math.min(
+					sig[i],
+					Math.abs(a[i] * r + b[i]) & Integer.MAX_VALUE);
+		}
+	}
+
 	@Override
 	public long[][] getCoefficients() {
 		throw new UnsupportedOperationException();
@@ -94,10 +110,11 @@ public class MinHashSimplified implements MinHash {
 
 		// h = (a * x) + b
 		// a and b should be randomly generated
-		hash_coefs = new int[signatureSize][2];
+		coefA = new int[signatureSize];
+		coefB = new int[signatureSize];
 		for (int i = 0; i < signatureSize; i++) {
-			hash_coefs[i][0] = Math.abs(r.nextInt()); // a
-			hash_coefs[i][1] = Math.abs(r.nextInt()); // b
+			coefA[i] = Math.abs(r.nextInt()); // a
+			coefB[i] = Math.abs(r.nextInt()); // b
 		}
 	}
 
@@ -107,10 +124,11 @@ public class MinHashSimplified implements MinHash {
 	 * @param i
 	 * @param x
 	 * @return the hashed value of x, using ith hash function
+	 * @implNote Math.abs(Integer.MIN_VALUE) stays Integer.MIN_VALUE, masking it gives 0
+	 * which is the same as 'ret == Integer.MIN_VALUE ? 0 : Math.abs(ret)' without branching
 	 */
 	int h(final int i, final int x) {
-		int ret = hash_coefs[i][0] * x + hash_coefs[i][1];
-		return ret == Integer.MIN_VALUE ? 0 : Math.abs(ret);
+		return Math.abs(coefA[i] * x + coefB[i]) & Integer.MAX_VALUE;
 	}
 
 	@Override
@@ -54,13 +54,17 @@ public class MinHashSimplified64 implements MinHash64 {
 	 */
 	@Override
 	public final long[] signature(final long[] longs) {
-		long[] sig = new long[signatureSize];
+		return signature(longs, longs.length, new long[signatureSize]);
+	}
 
+	@Override
+	public final long[] signature(final long[] longs, final int length, final long[] sig) {
 		for (int i = 0; i < signatureSize; i++) {
 			sig[i] = Long.MAX_VALUE;
 		}
 
-		for (final long r : longs) {
+		for (int index = 0; index < length; index++) {
+			final long r = longs[index];
 			// However, if c has 1 in row r, then for each i = 1, 2, . . . ,signatureSize
 			// set SIG(i, c) to the smaller of the current value of
 			// SIG(i, c) and hi(r)
@@ -0,0 +1,160 @@
+package chlx.hashing.minhash;
+
+import chlx.hashing.CityHash;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * One permutation hashing (Li, Owen & Zhang 2012) with optimal densification
+ * (Shrivastava 2017).
+ * <p>
+ * Every shingle is hashed only once: the high bits of its hash choose one of signatureSize bins,
+ * the low bits are the value kept if it is the minimum of that bin. Bins which received no shingle
+ * borrow the value of a non-empty bin picked by a (bin, attempt) seeded hash, so that two sets with
+ * the same non-empty bins always end up with the same signature.
+ * <p>
+ * Cost is O(shingles + signatureSize) instead of O(shingles * signatureSize) of {@link MinHashSimplified},
+ * but signatures are not compatible with the ones of {@link MinHashSimplified}
+ */
+public class OnePermutationMinHash implements MinHash {
+
+	private static final int EMPTY = Integer.MAX_VALUE;
+
+	private int signatureSize;
+	/**
+	 * Seed of the shingle hash function
+	 */
+	private long hashSeed;
+	/**
+	 * Seed of the densification hash function
+	 */
+	private long densifySeed;
+
+	/**
+	 * @param size the number of bins (and the size of resulting signatures)
+	 * @param seed random number generator seed. using the same value will
+	 *             guarantee identical hashes across object instantiations
+	 */
+	public OnePermutationMinHash(final int size, final long seed) {
+		init(size, new Random(seed));
+	}
+
+	/**
+	 * @param size the number of bins (and the size of resulting signatures)
+	 */
+	public OnePermutationMinHash(final int size) {
+		init(size, new Random());
+	}
+
+	private void init(final int size, final Random r) {
+		if (size <= 0) {
+			throw new InvalidParameterException(
+					"Signature size should be positive");
+		}
+		this.signatureSize = size;
+		this.hashSeed = r.nextLong();
+		this.densifySeed = r.nextLong();
+	}
+
+	/**
+	 * Computes the signature for this set. For example set = {0, 2, 3}
+	 *
+	 * @param shingles shingles, do not need to be sorted nor unique
+	 * @return the signature
+	 */
+	@Override
+	public int[] signature(final int[] shingles) {
+		return signature(shingles, shingles.length, new int[signatureSize]);
+	}
+
+	@Override
+	public int[] signature(final int[] shingles, final int length, final int[] sig) {
+		Arrays.fill(sig, 0, signatureSize, EMPTY);
+
+		for (int index = 0; index < length; index++) {
+			final int r = shingles[index];
+			long hash = CityHash.hash128to64(hashSeed, r);
+			int bin = bin(hash, signatureSize);
+			int value = (int) (hash & Integer.MAX_VALUE);
+			if (value == EMPTY) {
+				--value;
+			}
+			if (value < sig[bin]) {
+				sig[bin] = value;
+			}
+		}
+
+		densify(sig);
+		return sig;
+	}
+
+	/**
+	 * Optimal densification: each empty bin takes the value of the first originally non-empty bin
+	 * in its own pseudo random probing sequence
+	 *
+	 * @implNote values are never negative, so empty bins are marked with Integer.MIN_VALUE and
+	 * borrowed values are kept as ~value until the end to tell them apart from original ones
+	 * without any extra array
+	 */
+	private void densify(int[] sig) {
+		int emptyCount = 0;
+		for (int i = 0; i < signatureSize; i++) {
+			if (sig[i] == EMPTY) {
+				sig[i] = Integer.MIN_VALUE;
+				++emptyCount;
+			}
+		}
+		if (emptyCount == 0) {
+			return;
+		}
+		if (emptyCount == signatureSize) {
+			Arrays.fill(sig, 0, signatureSize, EMPTY);
+			return;
+		}
+
+		for (int i = 0; i < signatureSize; i++) {
+			if (sig[i] == Integer.MIN_VALUE) {
+				int attempt = 0;
+				int donor;
+				do {
+					donor = bin(CityHash.hash128to64(densifySeed, (((long) i) << 32) | attempt), signatureSize);
+					++attempt;
+				} while (sig[donor] < 0);
+				sig[i] = ~sig[donor];
+			}
+		}
+		for (int i = 0; i < signatureSize; i++) {
+			if (sig[i] < 0) {
+				sig[i] = ~sig[i];
+			}
+		}
+	}
+
+	/**
+	 * Maps the high 32 bits of hash into [0, size) without modulus
+	 */
+	static int bin(long hash, int size) {
+		return (int) (((hash >>> 32) * size) >>> 32);
+	}
+
+	@Override
+	public long[][] getCoefficients() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int[] signature(boolean[] vector) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int getSignatureSize() {
+		return signatureSize;
+	}
+
+}
@@ -0,0 +1,150 @@
+package chlx.hashing.minhash;
+
+import chlx.hashing.CityHash;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * 64 bit version of {@link OnePermutationMinHash}
+ */
+public class OnePermutationMinHash64 implements MinHash64 {
+
+	private static final long EMPTY = Long.MAX_VALUE;
+
+	private int signatureSize;
+	private long hashSeed;
+	private long densifySeed;
+
+	/**
+	 * @param size the number of bins (and the size of resulting signatures)
+	 * @param seed random number generator seed. using the same value will
+	 *             guarantee identical hashes across object instantiations
+	 */
+	public OnePermutationMinHash64(final int size, final long seed) {
+		init(size, new Random(seed));
+	}
+
+	/**
+	 * @param size the number of bins (and the size of resulting signatures)
+	 */
+	public OnePermutationMinHash64(final int size) {
+		init(size, new Random());
+	}
+
+	private void init(final int size, final Random r) {
+		if (size <= 0) {
+			throw new InvalidParameterException(
+					"Signature size should be positive");
+		}
+		this.signatureSize = size;
+		this.hashSeed = r.nextLong();
+		this.densifySeed = r.nextLong();
+	}
+
+	/**
+	 * Computes the signature for this set. For example set = {0, 2, 3}
+	 *
+	 * @param longs shingles, do not need to be sorted nor unique
+	 * @return the signature
+	 */
+	@Override
+	public long[] signature(final long[] longs) {
+		return signature(longs, longs.length, new long[signatureSize]);
+	}
+
+	@Override
+	public long[] signature(final long[] longs, final int length, final long[] sig) {
+		Arrays.fill(sig, 0, signatureSize, EMPTY);
+
+		for (int index = 0; index < length; index++) {
+			final long r = longs[index];
+			long hash = CityHash.hash128to64(hashSeed, r);
+			int bin = OnePermutationMinHash.bin(hash, signatureSize);
+			long value = value(hash);
+			if (value < sig[bin]) {
+				sig[bin] = value;
+			}
+		}
+
+		densify(sig);
+		return sig;
+	}
+
+	private static long value(long hash) {
+		long value = hash & Long.MAX_VALUE;
+		return value == EMPTY ? value - 1 : value;
+	}
+
+	/**
+	 * @see OnePermutationMinHash for the marking scheme
+	 */
+	private void densify(long[] sig) {
+		int emptyCount = 0;
+		for (int i = 0; i < signatureSize; i++) {
+			if (sig[i] == EMPTY) {
+				sig[i] = Long.MIN_VALUE;
+				++emptyCount;
+			}
+		}
+		if (emptyCount == 0) {
+			return;
+		}
+		if (emptyCount == signatureSize) {
+			Arrays.fill(sig, 0, signatureSize, EMPTY);
+			return;
+		}
+
+		for (int i = 0; i < signatureSize; i++) {
+			if (sig[i] == Long.MIN_VALUE) {
+				int attempt = 0;
+				int donor;
+				do {
+					donor = OnePermutationMinHash.bin(CityHash.hash128to64(densifySeed, (((long) i) << 32) | attempt), signatureSize);
+					++attempt;
+				} while (sig[donor] < 0);
+				sig[i] = ~sig[donor];
+			}
+		}
+		for (int i = 0; i < signatureSize; i++) {
+			if (sig[i] < 0) {
+				sig[i] = ~sig[i];
+			}
+		}
+	}
+
+	/**
+	 * @return the value of x in bin i, or Long.MAX_VALUE if x does not fall into bin i
+	 * @implNote densification is not applied, use {@link #signature(long)} for a single element set
+	 */
+	@Override
+	public long h(final int i, final long x) {
+		long hash = CityHash.hash128to64(hashSeed, x);
+		return OnePermutationMinHash.bin(hash, signatureSize) == i ? value(hash) : EMPTY;
+	}
+
+	@Override
+	public long[] signature(long l) {
+		return signature(new long[]{l});
+	}
+
+	@Override
+	public long[][] getCoefficients() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public long[] signature(boolean[] vector) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int getSignatureSize() {
+		return signatureSize;
+	}
+
+}
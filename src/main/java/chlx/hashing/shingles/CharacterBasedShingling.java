@@ -3,6 +3,8 @@ package chlx.hashing.shingles;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.function.IntConsumer;
+
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
  * Creation date: 2017-06
@@ -60,26 +62,42 @@ public class CharacterBasedShingling implements Shingling {
 	@NotNull
 	@Override
 	public int[] toPositiveShingles(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		toPositiveShingles(s, startIndex, endIndex, ret);
+		return ret.toIntArray();
+	}
+
+	@Override
+	public int toPositiveShingles(@NotNull String s, int startIndex, int endIndex, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		forEachPositiveShingle(s, startIndex, endIndex, ret::add);
+		return ret.size();
+	}
+
+	@Override
+	public int forEachPositiveShingle(@NotNull String s, int startIndex, int endIndex, @NotNull IntConsumer consumer) {
 		if (startIndex < 0) {
 			throw new IllegalArgumentException("contentStart can't be smaller than 0");
 		}
-		IntOpenHashSet ret = new IntOpenHashSet();
+		int count = 0;
 		if (endIndex - startIndex < k) {
 			int hash = Math.abs(partiallyHash(s, startIndex, endIndex));
 			if (hash > 0) {
-				ret.add(hash);
+				consumer.accept(hash);
+				++count;
 			}
-			return ret.toIntArray();
+			return count;
 		}
 
 		for (int i = 0; i <= endIndex - k; ++i) {
 			int hash = Math.abs(partiallyHash(s, i, i + k));
 			if (hash > 0) {
-				ret.add(hash);
+				consumer.accept(hash);
+				++count;
 			}
 		}
 
-		return ret.toIntArray();
+		return count;
 	}
 
 	@Override
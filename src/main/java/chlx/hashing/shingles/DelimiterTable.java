@@ -0,0 +1,120 @@
+package chlx.hashing.shingles;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Precomputed class of every UTF-16 unit for word shingling, one array lookup per character
+ * instead of a hash set probe.
+ * <p>
+ * A character is either part of a word, a delimiter, or a standalone word: a character
+ * which forms a word on its own (CJK ideographs, kana), because those scripts do not separate words with spaces.
+ */
+public final class DelimiterTable {
+
+	static final byte WORD = 0;
+	static final byte DELIMITER = 1;
+	static final byte STANDALONE = 2;
+
+	/**
+	 * Exactly the delimiters of {@link SimpleWordBasedShingling}
+	 */
+	public static final DelimiterTable DEFAULT = createDefault();
+
+	private final byte[] classes;
+
+	private DelimiterTable(byte[] classes) {
+		this.classes = classes;
+	}
+
+	private static DelimiterTable createDefault() {
+		byte[] classes = new byte[Character.MAX_VALUE + 1];
+		for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+			if (SimpleWordBasedShingling.STOP_WORD_SYMBOL_SET.contains((char) ch)) {
+				classes[ch] = DELIMITER;
+			}
+		}
+		return new DelimiterTable(classes);
+	}
+
+	/**
+	 * {@link #DEFAULT} delimiters plus every Unicode white space, separator and punctuation
+	 * except dashes and connectors (so hyphenated and snake_case words stay whole, as with {@link #DEFAULT}),
+	 * e.g. '，', '。', '、', '「', '“', '…' or no-break spaces found in CJK and Vietnamese text
+	 *
+	 * @param splitIdeographs make every Han, Hiragana and Katakana character a standalone word
+	 */
+	@NotNull
+	public static DelimiterTable unicode(boolean splitIdeographs) {
+		byte[] classes = DEFAULT.classes.clone();
+		for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+			if (Character.isSurrogate((char) ch)) {
+				continue;
+			}
+			if (isUnicodeDelimiter(ch)) {
+				classes[ch] = DELIMITER;
+			} else if (splitIdeographs && isIdeographic(ch)) {
+				classes[ch] = STANDALONE;
+			}
+		}
+		return new DelimiterTable(classes);
+	}
+
+	private static boolean isUnicodeDelimiter(int ch) {
+		if (Character.isWhitespace(ch) || Character.isSpaceChar(ch)) {
+			return true;
+		}
+		switch (Character.getType(ch)) {
+			case Character.START_PUNCTUATION:
+			case Character.END_PUNCTUATION:
+			case Character.INITIAL_QUOTE_PUNCTUATION:
+			case Character.FINAL_QUOTE_PUNCTUATION:
+			case Character.OTHER_PUNCTUATION:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isIdeographic(int ch) {
+		Character.UnicodeScript script = Character.UnicodeScript.of(ch);
+		return script == Character.UnicodeScript.HAN
+				|| script == Character.UnicodeScript.HIRAGANA
+				|| script == Character.UnicodeScript.KATAKANA;
+	}
+
+	/**
+	 * @return a copy of this table where chars are delimiters too
+	 */
+	@NotNull
+	public DelimiterTable withDelimiters(@NotNull char... chars) {
+		byte[] copy = classes.clone();
+		for (char ch : chars) {
+			copy[ch] = DELIMITER;
+		}
+		return new DelimiterTable(copy);
+	}
+
+	/**
+	 * @return a copy of this table where chars are parts of words
+	 */
+	@NotNull
+	public DelimiterTable withWordChars(@NotNull char... chars) {
+		byte[] copy = classes.clone();
+		for (char ch : chars) {
+			copy[ch] = WORD;
+		}
+		return new DelimiterTable(copy);
+	}
+
+	public boolean isDelimiter(char ch) {
+		return classes[ch] == DELIMITER;
+	}
+
+	byte classOf(char ch) {
+		return classes[ch];
+	}
+
+}
@@ -0,0 +1,201 @@
+package chlx.hashing.shingles;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Rabin-Karp version of {@link CharacterBasedShingling}: the hash of the next k-character window is
+ * updated in O(1) from the previous one instead of being recomputed, so shingling is O(n) whatever k is.
+ * <p>
+ * 32 bit shingles are the same polynomial (hash * 31 + ch) as {@link CharacterBasedShingling},
+ * only startIndex and endIndex are honored here (windows never start before startIndex).
+ * 64 bit shingles use a 64 bit odd base and a final mix for large k values.
+ */
+public class RollingCharacterShingling implements Shingling, Shingling64 {
+
+	private static final int BASE = 31;
+	private static final long BASE_64 = Shingling64Utils.BASE_64;
+
+	private final int k;
+	// BASE^(k-1), to remove the leaving character of a window
+	private final int leavingPower;
+	private final long leavingPower64;
+
+	public RollingCharacterShingling(int k) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be greater than 0");
+		}
+		this.k = k;
+		int power = 1;
+		long power64 = 1;
+		for (int i = 1; i < k; i++) {
+			power *= BASE;
+			power64 *= BASE_64;
+		}
+		this.leavingPower = power;
+		this.leavingPower64 = power64;
+	}
+
+	@NotNull
+	@Override
+	public IntOpenHashSet toShingleSet(@NotNull String s) {
+		return toShingleSet(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public IntOpenHashSet toShingleSet(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		addShingles(s, startIndex, endIndex, ret, false);
+		return ret;
+	}
+
+	@NotNull
+	@Override
+	public int[] toPositiveShingles(@NotNull String s) {
+		return toPositiveShingles(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public int[] toPositiveShingles(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		addShingles(s, startIndex, endIndex, ret, true);
+		return ret.toIntArray();
+	}
+
+	@Override
+	public int toPositiveShingles(@NotNull String s, int startIndex, int endIndex, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		addShingles(s, startIndex, endIndex, ret, true);
+		return ret.size();
+	}
+
+	@Override
+	public int forEachPositiveShingle(@NotNull String s, int startIndex, int endIndex, @NotNull IntConsumer consumer) {
+		checkIndexes(startIndex, endIndex);
+		int count = 0;
+		int hash = 0;
+		int windowEnd = Math.min(startIndex + k, endIndex);
+		for (int i = startIndex; i < windowEnd; ++i) {
+			hash = hash * BASE + s.charAt(i);
+		}
+		int positive = Math.abs(hash);
+		if (positive > 0) {
+			consumer.accept(positive);
+			++count;
+		}
+
+		for (int i = windowEnd; i < endIndex; ++i) {
+			hash = (hash - s.charAt(i - k) * leavingPower) * BASE + s.charAt(i);
+			positive = Math.abs(hash);
+			if (positive > 0) {
+				consumer.accept(positive);
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@NotNull
+	@Override
+	public LongOpenHashSet toShingleSet64(@NotNull String s) {
+		return toShingleSet64(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public LongOpenHashSet toShingleSet64(@NotNull String s, int startIndex, int endIndex) {
+		LongOpenHashSet ret = new LongOpenHashSet();
+		addShingles64(s, startIndex, endIndex, ret);
+		return ret;
+	}
+
+	@NotNull
+	@Override
+	public long[] toPositiveShingles64(@NotNull String s, int startIndex, int endIndex) {
+		return toShingleSet64(s, startIndex, endIndex).toLongArray();
+	}
+
+	@NotNull
+	@Override
+	public long[] toPositiveShingles64(@NotNull String s) {
+		return toPositiveShingles64(s, 0, s.length());
+	}
+
+	@Override
+	public int toPositiveShingles64(@NotNull String s, int startIndex, int endIndex, @NotNull LongOpenHashSet ret) {
+		ret.clear();
+		addShingles64(s, startIndex, endIndex, ret);
+		return ret.size();
+	}
+
+	private void addShingles(String s, int startIndex, int endIndex, IntOpenHashSet ret, boolean positive) {
+		checkIndexes(startIndex, endIndex);
+		int hash = 0;
+		int windowEnd = Math.min(startIndex + k, endIndex);
+		for (int i = startIndex; i < windowEnd; ++i) {
+			hash = hash * BASE + s.charAt(i);
+		}
+		add(ret, hash, positive);
+
+		for (int i = windowEnd; i < endIndex; ++i) {
+			hash = (hash - s.charAt(i - k) * leavingPower) * BASE + s.charAt(i);
+			add(ret, hash, positive);
+		}
+	}
+
+	private static void add(IntOpenHashSet ret, int hash, boolean positive) {
+		if (!positive) {
+			ret.add(hash);
+		} else {
+			hash = Math.abs(hash);
+			if (hash > 0) {
+				ret.add(hash);
+			}
+		}
+	}
+
+	private void addShingles64(String s, int startIndex, int endIndex, LongOpenHashSet ret) {
+		checkIndexes(startIndex, endIndex);
+		long hash = 0;
+		int windowEnd = Math.min(startIndex + k, endIndex);
+		for (int i = startIndex; i < windowEnd; ++i) {
+			hash = hash * BASE_64 + s.charAt(i);
+		}
+		add64(ret, hash);
+
+		for (int i = windowEnd; i < endIndex; ++i) {
+			hash = (hash - s.charAt(i - k) * leavingPower64) * BASE_64 + s.charAt(i);
+			add64(ret, hash);
+		}
+	}
+
+	private static void add64(LongOpenHashSet ret, long hash) {
+		long shingle = Shingling64Utils.toPositiveShingle(hash);
+		if (shingle != 0) {
+			ret.add(shingle);
+		}
+	}
+
+	private static void checkIndexes(int startIndex, int endIndex) {
+		if (startIndex < 0) {
+			throw new IllegalArgumentException("contentStart can't be smaller than 0");
+		}
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException("endIndex can't be smaller than startIndex");
+		}
+	}
+
+	@Override
+	public int getK() {
+		return k;
+	}
+
+}
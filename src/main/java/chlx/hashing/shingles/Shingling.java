@@ -3,6 +3,8 @@ package chlx.hashing.shingles;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.function.IntConsumer;
+
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
  * Creation date: 2017-06
@@ -35,6 +37,24 @@ public interface Shingling {
 	@NotNull
 	int[] toPositiveShingles(@NotNull String s, int startIndex, int endIndex);
 
+	/**
+	 * Clear ret then fill it with positive shingles of a sub string, ret keeps its capacity
+	 * so reusing it between documents allocates nothing
+	 *
+	 * @return number of unique shingles
+	 * @implSpec Shingles that equal to '0' and 'Integer.MIN_VALUE' (0x80000000) will not be returned
+	 */
+	int toPositiveShingles(@NotNull String s, int startIndex, int endIndex, @NotNull IntOpenHashSet ret);
+
+	/**
+	 * Push every positive shingle of a sub string into consumer as soon as it is computed,
+	 * without building a shingle set, so a shingle may be pushed more than once
+	 *
+	 * @return number of pushed shingles, duplicates included
+	 * @implSpec Shingles that equal to '0' and 'Integer.MIN_VALUE' (0x80000000) will not be pushed
+	 */
+	int forEachPositiveShingle(@NotNull String s, int startIndex, int endIndex, @NotNull IntConsumer consumer);
+
 	int getK();
 
 }
@@ -0,0 +1,52 @@
+package chlx.hashing.shingles;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * 64 bit version of {@link Shingling}, shingles are mixed 63 bit positive longs
+ * so that they do not collide on 100M+ document corpora
+ */
+public interface Shingling64 {
+
+	/**
+	 * @return positive long shingle set of a string
+	 * @implSpec Shingles that equal to '0' will not be returned
+	 */
+	@NotNull
+	LongOpenHashSet toShingleSet64(@NotNull String s);
+
+	/**
+	 * @return positive long shingle set of a sub string
+	 * @implSpec Shingles that equal to '0' will not be returned
+	 */
+	@NotNull
+	LongOpenHashSet toShingleSet64(@NotNull String s, int startIndex, int endIndex);
+
+	/**
+	 * @return positive long shingles of a string
+	 * @implSpec Shingles that equal to '0' will not be returned
+	 */
+	@NotNull
+	long[] toPositiveShingles64(@NotNull String s);
+
+	/**
+	 * @return positive long shingles of a sub string
+	 * @implSpec Shingles that equal to '0' will not be returned
+	 */
+	@NotNull
+	long[] toPositiveShingles64(@NotNull String s, int startIndex, int endIndex);
+
+	/**
+	 * Clear ret then fill it with positive long shingles of a sub string
+	 *
+	 * @return number of unique shingles
+	 */
+	int toPositiveShingles64(@NotNull String s, int startIndex, int endIndex, @NotNull LongOpenHashSet ret);
+
+	int getK();
+
+}
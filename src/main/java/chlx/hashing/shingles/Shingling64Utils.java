@@ -0,0 +1,53 @@
+package chlx.hashing.shingles;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Polynomial base and mixer shared by 64 bit shinglers
+ */
+public final class Shingling64Utils {
+
+	/**
+	 * Large odd base, unlike 31 it does not let short strings collide exactly (e.g. "Aa" and "BB")
+	 */
+	public static final long BASE_64 = 0x9E3779B97F4A7C15L;
+
+	private Shingling64Utils() {
+	}
+
+	public static long increaseHash(long hash, char ch) {
+		return hash * BASE_64 + ch;
+	}
+
+	/**
+	 * Final step of MurmurHash3, the polynomial alone mixes the last characters of a window poorly
+	 */
+	public static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * @return mixed positive shingle, 0 means it must be dropped
+	 */
+	public static long toPositiveShingle(long hash) {
+		return mix(hash) & Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return mixed positive 64 bit hash of a whole string (e.g. a word)
+	 */
+	public static long toPositiveShingle(CharSequence s) {
+		long hash = 0;
+		for (int i = 0; i < s.length(); i++) {
+			hash = increaseHash(hash, s.charAt(i));
+		}
+		return toPositiveShingle(hash);
+	}
+
+}
@@ -6,6 +6,7 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
+import java.util.function.IntConsumer;
 
 /**
  * Author: (づ｡◕‿‿◕｡)づ*
@@ -35,6 +36,8 @@ public class SimpleWordBasedShingling implements Shingling {
 
 	private final int nGram;
 	private final int[] track;
+	// Slot of track which accumulates the current word
+	private int current;
 
 	public SimpleWordBasedShingling(int nGram) {
 		if (nGram <= 0) {
@@ -115,53 +118,94 @@ public class SimpleWordBasedShingling implements Shingling {
 	@NotNull
 	@Override
 	public int[] toPositiveShingles(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		toPositiveShingles(s, startIndex, endIndex, ret);
+		return ret.toIntArray();
+	}
+
+	@Override
+	public int toPositiveShingles(@NotNull String s, int startIndex, int endIndex, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		forEachPositiveShingle(s, startIndex, endIndex, ret::add);
+		return ret.size();
+	}
+
+	@Override
+	public int forEachPositiveShingle(@NotNull String s, int startIndex, int endIndex, @NotNull IntConsumer consumer) {
 		if (startIndex < 0) {
 			throw new IllegalArgumentException("contentStart can't be smaller than 0");
 		}
 
-		IntOpenHashSet ret = new IntOpenHashSet();
-		Arrays.fill(track, 0);
-		int current = 0;
+		int count = 0;
+		resetTrack();
 
 		for (int charIndex = startIndex; charIndex < endIndex; ++charIndex) {
-			char ch = s.charAt(charIndex);
-			if (STOP_WORD_SYMBOL_SET.contains(ch)) {
+			count += pushChar(s.charAt(charIndex), consumer);
+		}
+
+		return count + finishTrack(consumer);
+	}
+
+	/**
+	 * Start shingling a new text
+	 */
+	final void resetTrack() {
+		Arrays.fill(track, 0);
+		current = 0;
+	}
+
+	/**
+	 * Push the next character of the text
+	 *
+	 * @return number of shingles pushed into consumer (0 or 1)
+	 */
+	final int pushChar(char ch, @NotNull IntConsumer consumer) {
+		int count = 0;
+		if (STOP_WORD_SYMBOL_SET.contains(ch)) {
+			if (track[current] != 0) {
+				current = (current + 1) % nGram;
 				if (track[current] != 0) {
-					current = (current + 1) % nGram;
-					if (track[current] != 0) {
-						int hash = Math.abs(track[current]);
-						if (hash > 0) {
-							ret.add(hash);
-						}
-						track[current] = 0;
-					}
-					for (int i = 0; i < nGram; ++i) {
-						track[i] = track[i] != 0 ? increaseHash(track[i], SPACE) : track[i];
+					int hash = Math.abs(track[current]);
+					if (hash > 0) {
+						consumer.accept(hash);
+						++count;
 					}
+					track[current] = 0;
 				}
-			} else {
-				track[current] = increaseHash(track[current], ch);
-				int i = (current + 1) % nGram;
-				while (i != current) {
-					if (track[i] != 0) {
-						track[i] = track[i] != 0 ? increaseHash(track[i], ch) : track[i];
-					}
-					i = (i + 1) % nGram;
+				for (int i = 0; i < nGram; ++i) {
+					track[i] = track[i] != 0 ? increaseHash(track[i], SPACE) : track[i];
+				}
+			}
+		} else {
+			track[current] = increaseHash(track[current], ch);
+			int i = (current + 1) % nGram;
+			while (i != current) {
+				if (track[i] != 0) {
+					track[i] = track[i] != 0 ? increaseHash(track[i], ch) : track[i];
 				}
+				i = (i + 1) % nGram;
 			}
 		}
+		return count;
+	}
 
+	/**
+	 * End of the text, push the last shingle if any
+	 *
+	 * @return number of shingles pushed into consumer (0 or 1)
+	 */
+	final int finishTrack(@NotNull IntConsumer consumer) {
 		if (track[current] != 0) {
 			current = (current + 1) % nGram;
 			if (track[current] != 0) {
 				int hash = Math.abs(track[current]);
 				if (hash > 0) {
-					ret.add(hash);
+					consumer.accept(hash);
+					return 1;
 				}
 			}
 		}
-
-		return ret.toIntArray();
+		return 0;
 	}
 
 	@Override
@@ -0,0 +1,115 @@
+package chlx.hashing.shingles;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+import static chlx.hashing.shingles.SimpleWordBasedShingling.STOP_WORD_SYMBOL_SET;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * 64 bit version of {@link SimpleWordBasedShingling}: same delimiters and same n-grams,
+ * but each n-gram is hashed with a 64 bit polynomial then mixed into a positive long
+ */
+public class SimpleWordBasedShingling64 implements Shingling64 {
+
+	private static final char SPACE = ' ';
+
+	private final int nGram;
+	private final long[] track;
+
+	public SimpleWordBasedShingling64(int nGram) {
+		if (nGram <= 0) {
+			throw new IllegalArgumentException("nGram must be greater than 0");
+		}
+		this.nGram = nGram;
+		track = new long[nGram];
+	}
+
+	@NotNull
+	@Override
+	public LongOpenHashSet toShingleSet64(@NotNull String s) {
+		return toShingleSet64(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public LongOpenHashSet toShingleSet64(@NotNull String s, int startIndex, int endIndex) {
+		LongOpenHashSet ret = new LongOpenHashSet();
+		toPositiveShingles64(s, startIndex, endIndex, ret);
+		return ret;
+	}
+
+	@NotNull
+	@Override
+	public long[] toPositiveShingles64(@NotNull String s) {
+		return toPositiveShingles64(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public long[] toPositiveShingles64(@NotNull String s, int startIndex, int endIndex) {
+		return toShingleSet64(s, startIndex, endIndex).toLongArray();
+	}
+
+	@Override
+	public int toPositiveShingles64(@NotNull String s, int startIndex, int endIndex, @NotNull LongOpenHashSet ret) {
+		if (startIndex < 0) {
+			throw new IllegalArgumentException("contentStart can't be smaller than 0");
+		}
+
+		ret.clear();
+		Arrays.fill(track, 0);
+		int current = 0;
+
+		for (int charIndex = startIndex; charIndex < endIndex; ++charIndex) {
+			char ch = s.charAt(charIndex);
+			if (STOP_WORD_SYMBOL_SET.contains(ch)) {
+				if (track[current] != 0) {
+					current = (current + 1) % nGram;
+					if (track[current] != 0) {
+						add(ret, track[current]);
+						track[current] = 0;
+					}
+					for (int i = 0; i < nGram; ++i) {
+						track[i] = track[i] != 0 ? Shingling64Utils.increaseHash(track[i], SPACE) : track[i];
+					}
+				}
+			} else {
+				track[current] = Shingling64Utils.increaseHash(track[current], ch);
+				int i = (current + 1) % nGram;
+				while (i != current) {
+					if (track[i] != 0) {
+						track[i] = Shingling64Utils.increaseHash(track[i], ch);
+					}
+					i = (i + 1) % nGram;
+				}
+			}
+		}
+
+		if (track[current] != 0) {
+			current = (current + 1) % nGram;
+			if (track[current] != 0) {
+				add(ret, track[current]);
+			}
+		}
+
+		return ret.size();
+	}
+
+	private static void add(LongOpenHashSet ret, long hash) {
+		long shingle = Shingling64Utils.toPositiveShingle(hash);
+		if (shingle != 0) {
+			ret.add(shingle);
+		}
+	}
+
+	@Override
+	public int getK() {
+		return nGram;
+	}
+
+}
@@ -0,0 +1,196 @@
+package chlx.hashing.shingles;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Word n-gram shingling engine which classifies characters with a {@link DelimiterTable}
+ * and only hashes the current word per character: no hash set probe and no update of every n-gram in progress.
+ * When a word ends, its n-gram hash is combined from the hashes of its last nGram words,
+ * with hash(a + ' ' + b) = (hash(a) * 31 + ' ') * 31^length(b) + hash(b).
+ * <p>
+ * With {@link DelimiterTable#DEFAULT} it produces exactly the same shingles as {@link SimpleWordBasedShingling},
+ * except in the 2^-32 likely case where {@link SimpleWordBasedShingling} drops an n-gram whose hash is 0 after
+ * a character which is not its last.
+ */
+public class TableWordBasedShingling implements Shingling {
+
+	private static final char SPACE = ' ';
+	private static final int[] POWERS_OF_31 = new int[64];
+
+	static {
+		POWERS_OF_31[0] = 1;
+		for (int i = 1; i < POWERS_OF_31.length; i++) {
+			POWERS_OF_31[i] = POWERS_OF_31[i - 1] * 31;
+		}
+	}
+
+	private final int nGram;
+	private final DelimiterTable table;
+	// Ring of the hashes of the last nGram words and of 31^length of each of them
+	private final int[] wordHashes;
+	private final int[] wordPowers;
+	// Slot of the ring which holds the last word
+	private int last;
+	// Number of words in the ring
+	private int words;
+	// Hash and length of the current word
+	private int wordHash;
+	private int wordLength;
+
+	public TableWordBasedShingling(int nGram) {
+		this(nGram, DelimiterTable.DEFAULT);
+	}
+
+	public TableWordBasedShingling(int nGram, @NotNull DelimiterTable table) {
+		if (nGram <= 0) {
+			throw new IllegalArgumentException("nGram must be greater than 0");
+		}
+		this.nGram = nGram;
+		this.table = table;
+		this.wordHashes = new int[nGram];
+		this.wordPowers = new int[nGram];
+	}
+
+	/**
+	 * Shingles that equal to '0' will not be returned
+	 */
+	@NotNull
+	@Override
+	public IntOpenHashSet toShingleSet(@NotNull String s) {
+		return toShingleSet(s, 0, s.length());
+	}
+
+	/**
+	 * Shingles that equal to '0' will not be returned
+	 */
+	@NotNull
+	@Override
+	public IntOpenHashSet toShingleSet(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		shingle(s, startIndex, endIndex, ret::add, false);
+		return ret;
+	}
+
+	@NotNull
+	@Override
+	public int[] toPositiveShingles(@NotNull String s) {
+		return toPositiveShingles(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public int[] toPositiveShingles(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		shingle(s, startIndex, endIndex, ret::add, true);
+		return ret.toIntArray();
+	}
+
+	@Override
+	public int toPositiveShingles(@NotNull String s, int startIndex, int endIndex, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		shingle(s, startIndex, endIndex, ret::add, true);
+		return ret.size();
+	}
+
+	@Override
+	public int forEachPositiveShingle(@NotNull String s, int startIndex, int endIndex, @NotNull IntConsumer consumer) {
+		return shingle(s, startIndex, endIndex, consumer, true);
+	}
+
+	private int shingle(String s, int startIndex, int endIndex, IntConsumer consumer, boolean positive) {
+		if (startIndex < 0) {
+			throw new IllegalArgumentException("contentStart can't be smaller than 0");
+		}
+
+		int count = 0;
+		last = nGram - 1;
+		words = 0;
+		wordHash = 0;
+		wordLength = 0;
+
+		for (int charIndex = startIndex; charIndex < endIndex; ++charIndex) {
+			char ch = s.charAt(charIndex);
+			byte charClass = table.classOf(ch);
+			if (charClass == DelimiterTable.WORD) {
+				wordHash = wordHash * 31 + ch;
+				++wordLength;
+			} else if (charClass == DelimiterTable.DELIMITER) {
+				count += endWord(consumer, positive);
+			} else {
+				count += endWord(consumer, positive);
+				wordHash = wordHash * 31 + ch;
+				++wordLength;
+				count += endWord(consumer, positive);
+			}
+		}
+
+		return count + endWord(consumer, positive);
+	}
+
+	/**
+	 * If a word has just ended, push it into the ring and emit the n-gram it ends once there are nGram words.
+	 * A word whose hash is 0 does not end, as with {@link SimpleWordBasedShingling} it is glued to the next word.
+	 *
+	 * @return number of emitted shingles (0 or 1)
+	 */
+	private int endWord(IntConsumer consumer, boolean positive) {
+		if (wordHash == 0) {
+			return 0;
+		}
+		last = last + 1 == nGram ? 0 : last + 1;
+		wordHashes[last] = wordHash;
+		wordPowers[last] = powerOf31(wordLength);
+		wordHash = 0;
+		wordLength = 0;
+		if (words < nGram) {
+			++words;
+			if (words < nGram) {
+				return 0;
+			}
+		}
+
+		int slot = last + 1 == nGram ? 0 : last + 1;
+		int hash = wordHashes[slot];
+		for (int i = 1; i < nGram; ++i) {
+			slot = slot + 1 == nGram ? 0 : slot + 1;
+			hash = (hash * 31 + SPACE) * wordPowers[slot] + wordHashes[slot];
+		}
+		return emit(hash, consumer, positive);
+	}
+
+	private static int powerOf31(int exponent) {
+		if (exponent < POWERS_OF_31.length) {
+			return POWERS_OF_31[exponent];
+		}
+		int ret = POWERS_OF_31[POWERS_OF_31.length - 1];
+		for (int i = POWERS_OF_31.length - 1; i < exponent; i++) {
+			ret *= 31;
+		}
+		return ret;
+	}
+
+	private static int emit(int hash, IntConsumer consumer, boolean positive) {
+		if (positive) {
+			hash = Math.abs(hash);
+			if (hash <= 0) {
+				return 0;
+			}
+		} else if (hash == 0) {
+			return 0;
+		}
+		consumer.accept(hash);
+		return 1;
+	}
+
+	@Override
+	public int getK() {
+		return nGram;
+	}
+
+}
@@ -0,0 +1,208 @@
+package chlx.hashing.shingles;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.IntConsumer;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * {@link SimpleWordBasedShingling} which also reads UTF-8 bytes directly: byte[], heap or direct
+ * {@link ByteBuffer} and memory-mapped file regions, without decoding them into a String first.
+ * <p>
+ * Every delimiter is ASCII, and UTF-8 continuation bytes are never ASCII, so word boundaries are found
+ * on bytes. Other sequences are decoded on the fly into UTF-16 units, so well-formed UTF-8 gives exactly
+ * the same shingles as {@link SimpleWordBasedShingling} on the decoded String.
+ * Malformed sequences are replaced by U+FFFD one byte at a time.
+ */
+public class Utf8WordBasedShingling extends SimpleWordBasedShingling {
+
+	private static final char REPLACEMENT = '\uFFFD';
+
+	public Utf8WordBasedShingling(int nGram) {
+		super(nGram);
+	}
+
+	/**
+	 * @return positive shingles of UTF-8 bytes[offset, offset + length)
+	 */
+	@NotNull
+	public int[] toPositiveShingles(@NotNull byte[] bytes, int offset, int length) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		forEachPositiveShingle(bytes, offset, length, ret::add);
+		return ret.toIntArray();
+	}
+
+	/**
+	 * Clear ret then fill it with positive shingles of UTF-8 bytes[offset, offset + length)
+	 *
+	 * @return number of unique shingles
+	 */
+	public int toPositiveShingles(@NotNull byte[] bytes, int offset, int length, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		forEachPositiveShingle(bytes, offset, length, ret::add);
+		return ret.size();
+	}
+
+	/**
+	 * @return positive shingles of UTF-8 bytes between buffer's position and limit, position is not changed
+	 */
+	@NotNull
+	public int[] toPositiveShingles(@NotNull ByteBuffer buffer) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		forEachPositiveShingle(buffer, ret::add);
+		return ret.toIntArray();
+	}
+
+	/**
+	 * Clear ret then fill it with positive shingles of UTF-8 bytes between buffer's position and limit,
+	 * position is not changed
+	 *
+	 * @return number of unique shingles
+	 */
+	public int toPositiveShingles(@NotNull ByteBuffer buffer, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		forEachPositiveShingle(buffer, ret::add);
+		return ret.size();
+	}
+
+	/**
+	 * Positive shingles of a UTF-8 region of a file, the region is memory-mapped read only
+	 */
+	@NotNull
+	public int[] toPositiveShingles(@NotNull FileChannel channel, long position, long size) throws IOException {
+		return toPositiveShingles(map(channel, position, size));
+	}
+
+	/**
+	 * Map a region of a file so that several documents of it can be shingled with
+	 * {@link #toPositiveShingles(ByteBuffer)} after setting position and limit
+	 */
+	@NotNull
+	public static MappedByteBuffer map(@NotNull FileChannel channel, long position, long size) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+
+	/**
+	 * @see Shingling#forEachPositiveShingle(String, int, int, IntConsumer)
+	 */
+	public int forEachPositiveShingle(@NotNull byte[] bytes, int offset, int length, @NotNull IntConsumer consumer) {
+		if (offset < 0 || length < 0 || offset + length > bytes.length) {
+			throw new IllegalArgumentException("offset and length must be inside bytes");
+		}
+
+		int count = 0;
+		resetTrack();
+
+		int end = offset + length;
+		int i = offset;
+		while (i < end) {
+			int b = bytes[i];
+			if (b >= 0) {
+				count += pushChar((char) b, consumer);
+				++i;
+				continue;
+			}
+			int n = sequenceLength(b);
+			int codePoint = n == 0 || i + n > end ? -1 : decode(b, n, bytes[i + 1], n > 2 ? bytes[i + 2] : 0, n > 3 ? bytes[i + 3] : 0);
+			if (codePoint < 0) {
+				count += pushChar(REPLACEMENT, consumer);
+				++i;
+			} else {
+				count += pushCodePoint(codePoint, consumer);
+				i += n;
+			}
+		}
+
+		return count + finishTrack(consumer);
+	}
+
+	/**
+	 * @see Shingling#forEachPositiveShingle(String, int, int, IntConsumer)
+	 */
+	public int forEachPositiveShingle(@NotNull ByteBuffer buffer, @NotNull IntConsumer consumer) {
+		if (buffer.hasArray()) {
+			return forEachPositiveShingle(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), consumer);
+		}
+
+		int count = 0;
+		resetTrack();
+
+		int end = buffer.limit();
+		int i = buffer.position();
+		while (i < end) {
+			int b = buffer.get(i);
+			if (b >= 0) {
+				count += pushChar((char) b, consumer);
+				++i;
+				continue;
+			}
+			int n = sequenceLength(b);
+			int codePoint = n == 0 || i + n > end ? -1 : decode(b, n, buffer.get(i + 1), n > 2 ? buffer.get(i + 2) : 0, n > 3 ? buffer.get(i + 3) : 0);
+			if (codePoint < 0) {
+				count += pushChar(REPLACEMENT, consumer);
+				++i;
+			} else {
+				count += pushCodePoint(codePoint, consumer);
+				i += n;
+			}
+		}
+
+		return count + finishTrack(consumer);
+	}
+
+	private int pushCodePoint(int codePoint, IntConsumer consumer) {
+		if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			return pushChar((char) codePoint, consumer);
+		}
+		int count = pushChar(Character.highSurrogate(codePoint), consumer);
+		return count + pushChar(Character.lowSurrogate(codePoint), consumer);
+	}
+
+	/**
+	 * @return number of bytes of the sequence started by lead byte b, 0 if b cannot start a sequence
+	 */
+	private static int sequenceLength(int b) {
+		if ((b & 0xE0) == 0xC0) {
+			return 2;
+		} else if ((b & 0xF0) == 0xE0) {
+			return 3;
+		} else if ((b & 0xF8) == 0xF0) {
+			return 4;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return decoded code point, -1 if the sequence is malformed
+	 */
+	private static int decode(int b0, int n, int b1, int b2, int b3) {
+		if ((b1 & 0xC0) != 0x80) {
+			return -1;
+		}
+		int codePoint;
+		if (n == 2) {
+			codePoint = ((b0 & 0x1F) << 6) | (b1 & 0x3F);
+			return codePoint < 0x80 ? -1 : codePoint;
+		}
+		if ((b2 & 0xC0) != 0x80) {
+			return -1;
+		}
+		if (n == 3) {
+			codePoint = ((b0 & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+			return codePoint < 0x800 || Character.isSurrogate((char) codePoint) ? -1 : codePoint;
+		}
+		if ((b3 & 0xC0) != 0x80) {
+			return -1;
+		}
+		codePoint = ((b0 & 0x07) << 18) | ((b1 & 0x3F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F);
+		return codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT ? -1 : codePoint;
+	}
+
+}
@@ -0,0 +1,172 @@
+package chlx.hashing.shingles;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Author: (づ｡◕‿‿◕｡)づ*
+ * Creation date: 2026-10
+ *
+ * Winnowing (Schleimer, Wilkerson & Aiken 2003) over the shingles of another {@link Shingling}:
+ * of every window of w consecutive shingles only the minimum one (the rightmost on ties) is kept.
+ * <p>
+ * Guarantees:
+ * - at least one shingle is kept in every window of w shingles, and about 2 / (w + 1) of them on random text,
+ * so the number of shingles given to MinHash is divided by about (w + 1) / 2
+ * - with k-token shingles, two texts sharing at least w + k - 1 consecutive tokens share at least one kept shingle
+ * <p>
+ * All set methods return positive shingles, since they are built from
+ * {@link Shingling#forEachPositiveShingle(String, int, int, IntConsumer)} which keeps the document order.
+ */
+public class WinnowingShingling implements Shingling {
+
+	private final Shingling shingling;
+	private final int w;
+	private final Winnower winnower;
+
+	/**
+	 * @param shingling shingler whose forEachPositiveShingle pushes shingles in document order
+	 * @param w         window size in number of shingles
+	 */
+	public WinnowingShingling(@NotNull Shingling shingling, int w) {
+		if (w <= 0) {
+			throw new IllegalArgumentException("w must be greater than 0");
+		}
+		this.shingling = shingling;
+		this.w = w;
+		this.winnower = new Winnower(w);
+	}
+
+	@NotNull
+	@Override
+	public IntOpenHashSet toShingleSet(@NotNull String s) {
+		return toShingleSet(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public IntOpenHashSet toShingleSet(@NotNull String s, int startIndex, int endIndex) {
+		IntOpenHashSet ret = new IntOpenHashSet();
+		forEachPositiveShingle(s, startIndex, endIndex, ret::add);
+		return ret;
+	}
+
+	@NotNull
+	@Override
+	public int[] toPositiveShingles(@NotNull String s) {
+		return toPositiveShingles(s, 0, s.length());
+	}
+
+	@NotNull
+	@Override
+	public int[] toPositiveShingles(@NotNull String s, int startIndex, int endIndex) {
+		return toShingleSet(s, startIndex, endIndex).toIntArray();
+	}
+
+	@Override
+	public int toPositiveShingles(@NotNull String s, int startIndex, int endIndex, @NotNull IntOpenHashSet ret) {
+		ret.clear();
+		forEachPositiveShingle(s, startIndex, endIndex, ret::add);
+		return ret.size();
+	}
+
+	@Override
+	public int forEachPositiveShingle(@NotNull String s, int startIndex, int endIndex, @NotNull IntConsumer consumer) {
+		winnower.reset(consumer);
+		shingling.forEachPositiveShingle(s, startIndex, endIndex, winnower);
+		return winnower.finish();
+	}
+
+	@Override
+	public int getK() {
+		return shingling.getK();
+	}
+
+	public int getW() {
+		return w;
+	}
+
+	/**
+	 * Robust winnowing over a ring buffer of the last w shingles
+	 */
+	private static class Winnower implements IntConsumer {
+
+		private final int w;
+		private final int[] buffer;
+		private IntConsumer consumer;
+		// Index of the newest shingle in buffer
+		private int right;
+		// Index of the minimum shingle of the current window in buffer
+		private int min;
+		private boolean minEmitted;
+		private long pushed;
+		private int emitted;
+
+		Winnower(int w) {
+			this.w = w;
+			this.buffer = new int[w];
+		}
+
+		void reset(IntConsumer consumer) {
+			this.consumer = consumer;
+			Arrays.fill(buffer, Integer.MAX_VALUE);
+			right = 0;
+			min = 0;
+			minEmitted = false;
+			pushed = 0;
+			emitted = 0;
+		}
+
+		@Override
+		public void accept(int shingle) {
+			++pushed;
+			right = right + 1 == w ? 0 : right + 1;
+			buffer[right] = shingle;
+
+			if (min == right) {
+				// The minimum has just left the window, rescan from the oldest to the newest
+				// so that the rightmost minimum wins
+				int i = right + 1 == w ? 0 : right + 1;
+				min = i;
+				for (int step = 1; step < w; step++) {
+					i = i + 1 == w ? 0 : i + 1;
+					if (buffer[i] <= buffer[min]) {
+						min = i;
+					}
+				}
+				minEmitted = false;
+			} else if (shingle <= buffer[min]) {
+				min = right;
+				minEmitted = false;
+			}
+
+			if (pushed >= w && !minEmitted) {
+				emit();
+			}
+		}
+
+		/**
+		 * A text with less than w shingles has no full window, keep its minimum
+		 *
+		 * @return number of kept shingles
+		 */
+		int finish() {
+			if (pushed > 0 && pushed < w) {
+				emit();
+			}
+			consumer = null;
+			return emitted;
+		}
+
+		private void emit() {
+			consumer.accept(buffer[min]);
+			minEmitted = true;
+			++emitted;
+		}
+
+	}
+
+}
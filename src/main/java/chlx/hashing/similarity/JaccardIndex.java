@@ -209,7 +209,9 @@ public class JaccardIndex {
 		int maxDif1 = (int) (s1.length * (1 - minSimThreshold));
 		int maxDif2 = (int) (s2.length * (1 - minSimThreshold));
 
-		if (s1[maxDif1] > s2[s2.length - 1] || s2[maxDif2] > s1[s1.length - 1]) {
+		// Elements greater than the max of the other array are all differences
+		if ((maxDif1 < s1.length && s1[s1.length - 1 - maxDif1] > s2[s2.length - 1])
+				|| (maxDif2 < s2.length && s2[s2.length - 1 - maxDif2] > s1[s1.length - 1])) {
 			return 0;
 		}
 